@@ -0,0 +1,40 @@
+package com.vres.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.vres.idempotency.IdempotencyStore;
+import com.vres.idempotency.InMemoryIdempotencyStore;
+import com.vres.idempotency.JdbcIdempotencyStore;
+
+// Selects where Idempotency-Key responses live: memory (default, single node) or jdbc (idempotency_keys table)
+@Configuration
+public class IdempotencyStoreConfiguration {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${vres.idempotency.store:memory}")
+    private String type;
+
+    @Value("${vres.idempotency.memory.max-entries:100000}")
+    private long maxEntries;
+
+    @Value("${vres.idempotency.jdbc.purge-interval-seconds:300}")
+    private long purgeIntervalSeconds;
+
+    @Bean(destroyMethod = "shutdown")
+    public IdempotencyStore idempotencyStore() {
+        switch (type.trim().toLowerCase()) {
+            case "memory":
+                return new InMemoryIdempotencyStore(maxEntries);
+            case "jdbc":
+                return new JdbcIdempotencyStore(jdbcTemplate, purgeIntervalSeconds);
+            default:
+                throw new IllegalStateException("Unknown vres.idempotency.store: " + type);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.vres.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.vres.storage.FileSystemObjectStore;
+import com.vres.storage.MappedSegmentObjectStore;
+import com.vres.storage.ObjectStore;
+import com.vres.storage.S3ObjectStore;
+
+// Selects where QR images are stored: s3 (default), filesystem or mapped (segment files)
+@Configuration
+public class ObjectStoreConfiguration {
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${vres.object-store.type:s3}")
+    private String type;
+
+    @Value("${vres.object-store.s3.bucket:vres-qr}")
+    private String bucketName;
+
+    @Value("${aws.s3.presigned-url.duration-minutes:15}")
+    private long presignedUrlDurationMinutes;
+
+    @Value("${vres.object-store.s3.multipart-threshold-bytes:16777216}")
+    private long multipartThresholdBytes;
+
+    @Value("${vres.object-store.s3.upload-threads:16}")
+    private int uploadThreads;
+
+    @Value("${vres.object-store.filesystem.root:data/objects}")
+    private String filesystemRoot;
+
+    @Value("${vres.object-store.mapped.directory:data/segments}")
+    private String segmentDirectory;
+
+    @Value("${vres.object-store.mapped.segment-bytes:268435456}")
+    private int segmentBytes;
+
+    @Value("${vres.object-store.mapped.sync:false}")
+    private boolean segmentSync;
+
+    @Bean
+    public ObjectStore objectStore() throws IOException {
+        switch (type.trim().toLowerCase()) {
+            case "s3":
+                return new S3ObjectStore(s3Client(), bucketName, presignedUrlDurationMinutes,
+                        multipartThresholdBytes, uploadThreads);
+            case "filesystem":
+                return new FileSystemObjectStore(Path.of(filesystemRoot));
+            case "mapped":
+                return new MappedSegmentObjectStore(Path.of(segmentDirectory), segmentBytes, segmentSync);
+            default:
+                throw new IllegalStateException("Unknown vres.object-store.type: " + type);
+        }
+    }
+
+    // Credentials are only required when S3 is actually in use
+    private AmazonS3 s3Client() {
+        BasicAWSCredentials awsCreds = new BasicAWSCredentials(
+                environment.getRequiredProperty("spring.cloud.aws.credentials.access-key"),
+                environment.getRequiredProperty("spring.cloud.aws.credentials.secret-key"));
+
+        return AmazonS3ClientBuilder.standard()
+                .withRegion(environment.getRequiredProperty("spring.cloud.aws.region.static"))
+                .withCredentials(new AWSStaticCredentialsProvider(awsCreds))
+                .build();
+    }
+}
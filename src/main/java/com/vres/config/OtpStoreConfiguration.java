@@ -0,0 +1,59 @@
+package com.vres.config;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.vres.otp.InMemoryOtpStore;
+import com.vres.otp.JdbcOtpStore;
+import com.vres.otp.OtpStore;
+import com.vres.otp.ReplicatedOtpStore;
+
+// Selects where redemption OTPs live: memory (default, single node), jdbc (redemption_otps table) or replicated (peer push)
+@Configuration
+public class OtpStoreConfiguration {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${vres.otp.store:memory}")
+    private String type;
+
+    @Value("${vres.otp.memory.tick-millis:1000}")
+    private long tickMillis;
+
+    @Value("${vres.otp.jdbc.purge-interval-seconds:60}")
+    private long purgeIntervalSeconds;
+
+    @Value("${vres.otp.replication.peers:}")
+    private String peers;
+
+    @Value("${vres.otp.replication.secret:}")
+    private String replicationSecret;
+
+    @Value("${vres.otp.replication.timeout-millis:2000}")
+    private long replicationTimeoutMillis;
+
+    @Value("${vres.otp.replication.max-age-millis:30000}")
+    private long replicationMaxAgeMillis;
+
+    @Bean(destroyMethod = "shutdown")
+    public OtpStore otpStore() {
+        switch (type.trim().toLowerCase()) {
+            case "memory":
+                return new InMemoryOtpStore(tickMillis);
+            case "jdbc":
+                return new JdbcOtpStore(jdbcTemplate, purgeIntervalSeconds);
+            case "replicated":
+                return new ReplicatedOtpStore(new InMemoryOtpStore(tickMillis), Arrays.asList(peers.split(",")),
+                        replicationSecret, Duration.ofMillis(replicationTimeoutMillis), Duration.ofMillis(replicationMaxAgeMillis));
+            default:
+                throw new IllegalStateException("Unknown vres.otp.store: " + type);
+        }
+    }
+}
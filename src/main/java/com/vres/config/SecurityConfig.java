@@ -38,6 +38,9 @@ public class SecurityConfig {
     @Value("${vres.allowed.origins}")
     private String[] allowedOrigins;
 
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -47,6 +50,17 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 // Allow all requests to your auth controller
                 .requestMatchers("/vres/auth/**").permitAll() 
+
+                // Voucher QR images linked from the beneficiary SMS
+                .requestMatchers("/vres/qr/**").permitAll()
+
+                // OTP replication between nodes, signed with the shared secret
+                .requestMatchers("/vres/internal/otp/**").permitAll()
+
+                // Prometheus scrapes without a JWT, but only on the management port, which is not
+                // published outside the private network; on any other port the endpoint needs a JWT
+                .requestMatchers(request -> request.getLocalPort() == managementPort
+                        && "/actuator/prometheus".equals(request.getRequestURI())).permitAll()
                 
                 // All other requests must be authenticated
                 .anyRequest().authenticated() 
@@ -69,7 +83,8 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList(allowedOrigins));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type", "Idempotency-Key"));
+        configuration.setExposedHeaders(Arrays.asList("Idempotent-Replayed", "Content-Disposition"));
         configuration.setAllowCredentials(true);
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,47 @@
+package com.vres.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * A small second pool, on the same database, for reads that stream their rows
+ * to the response (dashboard list pages and project exports). Its connections set
+ * {@code useCursorFetch}, so a statement with a fetch size reads through a
+ * server-side cursor; the main pool keeps client-side prepared statements.
+ * <p>
+ * Both beans are qualified {@code streaming} and not default candidates, so the
+ * auto-configured DataSource and JdbcTemplate stay in place for everything else.
+ */
+@Configuration
+public class StreamingDataSourceConfiguration {
+
+    public static final String STREAMING = "streaming";
+
+    @Value("${vres.jdbc.streaming.pool-size:8}")
+    private int poolSize;
+
+    @Bean(defaultCandidate = false, destroyMethod = "close")
+    @Qualifier(STREAMING)
+    public HikariDataSource streamingDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("vres-streaming");
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setMinimumIdle(0);
+        dataSource.addDataSourceProperty("useCursorFetch", "true");
+        return dataSource;
+    }
+
+    @Bean(defaultCandidate = false)
+    @Qualifier(STREAMING)
+    public JdbcTemplate streamingJdbcTemplate(@Qualifier(STREAMING) DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+}
@@ -3,12 +3,16 @@ package com.vres.controller;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.vres.service.DashboardCache;
 import com.vres.service.DashboardService;
 
 @RestController
@@ -18,9 +22,37 @@ public class DashboardController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private DashboardCache dashboardCache;
+
     @GetMapping("/project/{projectId}")
     public ResponseEntity<Map<String, Object>> getDashboardByProject(@PathVariable int projectId) {
-        Map<String, Object> dashboardData = dashboardService.getDashboardByProjectId(projectId);
+        Map<String, Object> dashboardData = dashboardCache.get(projectId);
         return ResponseEntity.ok(dashboardData);
     }
-}
\ No newline at end of file
+
+    // List sections, keyset-paginated: pass the previous page's nextCursor as "after"
+    @GetMapping("/project/{projectId}/beneficiaries")
+    public ResponseEntity<StreamingResponseBody> getBeneficiaries(@PathVariable int projectId,
+            @RequestParam(defaultValue = "0") int after, @RequestParam(required = false) Integer limit) {
+        int pageSize = dashboardService.resolveListPage(projectId, limit);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(out -> dashboardService.writeBeneficiaryPage(projectId, after, pageSize, out));
+    }
+
+    @GetMapping("/project/{projectId}/vouchers")
+    public ResponseEntity<StreamingResponseBody> getVouchers(@PathVariable int projectId,
+            @RequestParam(defaultValue = "0") int after, @RequestParam(required = false) Integer limit) {
+        int pageSize = dashboardService.resolveListPage(projectId, limit);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(out -> dashboardService.writeVoucherPage(projectId, after, pageSize, out));
+    }
+
+    @GetMapping("/project/{projectId}/redemptions")
+    public ResponseEntity<StreamingResponseBody> getRedemptions(@PathVariable int projectId,
+            @RequestParam(defaultValue = "0") int after, @RequestParam(required = false) Integer limit) {
+        int pageSize = dashboardService.resolveListPage(projectId, limit);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(out -> dashboardService.writeRedemptionPage(projectId, after, pageSize, out));
+    }
+}
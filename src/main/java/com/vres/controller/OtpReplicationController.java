@@ -0,0 +1,36 @@
+package com.vres.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.vres.otp.OtpStore;
+import com.vres.otp.ReplicatedOtpStore;
+
+// Node-to-node OTP replication (vres.otp.store=replicated). Authenticated by the HMAC signature, not a JWT.
+@RestController
+@RequestMapping("/vres/internal/otp")
+public class OtpReplicationController {
+
+    @Autowired
+    private OtpStore otpStore;
+
+    @PostMapping("/replicate")
+    public ResponseEntity<Void> replicate(@RequestBody String body,
+                                          @RequestHeader(value = ReplicatedOtpStore.SIGNATURE_HEADER, required = false) String signature) {
+        if (!(otpStore instanceof ReplicatedOtpStore replicated)) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            replicated.applyReplica(body, signature);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
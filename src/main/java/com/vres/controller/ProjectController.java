@@ -4,6 +4,8 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,10 +17,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.vres.dto.BeneficiaryDto;
 import com.vres.dto.CoordinatorDto;
 import com.vres.dto.GenericResponse;
+import com.vres.dto.IssuanceJobDto;
 import com.vres.dto.ProjectDetailsCreationRequest;
 import com.vres.dto.ProjectInitiationRequest;
 import com.vres.dto.ProjectResponse;
@@ -27,6 +31,7 @@ import com.vres.dto.UnassignedUserDto;
 import com.vres.dto.UserResponse;
 import com.vres.dto.VoucherCreationRequest;
 import com.vres.entity.Projects;
+import com.vres.service.ProjectExportService;
 import com.vres.service.ProjectService;
 import com.vres.service.UserService;
 
@@ -40,6 +45,9 @@ public class ProjectController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ProjectExportService projectExportService;
+
     // --- NEW ENDPOINT FOR VENDORS ---
     @GetMapping("/{projectId}/vendors")
     public ResponseEntity<List<UserResponse>> getVendorsForProject(@PathVariable int projectId) {
@@ -122,9 +130,14 @@ public class ProjectController {
     }
 
     @PostMapping("/{projectId}/vouchers")
-    public ResponseEntity<GenericResponse> createVouchers(@PathVariable int projectId, @RequestBody VoucherCreationRequest request) {
-        projectService.createVouchersForProject(projectId, request);
-        return ResponseEntity.ok(new GenericResponse("Vouchers created successfully."));
+    public ResponseEntity<IssuanceJobDto> createVouchers(@PathVariable int projectId, @RequestBody VoucherCreationRequest request) {
+        IssuanceJobDto job = projectService.createVouchersForProject(projectId, request);
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/{projectId}/vouchers/jobs/{jobId}")
+    public ResponseEntity<IssuanceJobDto> getVoucherIssuanceJob(@PathVariable int projectId, @PathVariable int jobId) {
+        return ResponseEntity.ok(projectService.getIssuanceJob(projectId, jobId));
     }
     
     @GetMapping("/{projectId}/vouchers")
@@ -132,4 +145,28 @@ public class ProjectController {
         List<ProjectVoucherDto> vouchers = projectService.getVouchersForProject(projectId);
         return ResponseEntity.ok(vouchers);
     }
+
+    // Exports stream as they are read (chunked, no Content-Length); format is csv or xlsx
+    @GetMapping("/{projectId}/vouchers/export")
+    public ResponseEntity<StreamingResponseBody> exportVouchers(@PathVariable int projectId,
+            @RequestParam(defaultValue = "csv") String format) {
+        ProjectExportService.Format exportFormat = projectExportService.resolveFormat(projectId, format);
+        return exportResponse(projectId, "vouchers", exportFormat)
+                .body(out -> projectExportService.writeVouchers(projectId, exportFormat, out));
+    }
+
+    @GetMapping("/{projectId}/redemptions/export")
+    public ResponseEntity<StreamingResponseBody> exportRedemptions(@PathVariable int projectId,
+            @RequestParam(defaultValue = "csv") String format) {
+        ProjectExportService.Format exportFormat = projectExportService.resolveFormat(projectId, format);
+        return exportResponse(projectId, "redemptions", exportFormat)
+                .body(out -> projectExportService.writeRedemptions(projectId, exportFormat, out));
+    }
+
+    private ResponseEntity.BodyBuilder exportResponse(int projectId, String what, ProjectExportService.Format format) {
+        String fileName = "project-" + projectId + "-" + what + "." + format.getExtension();
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString());
+    }
 }
\ No newline at end of file
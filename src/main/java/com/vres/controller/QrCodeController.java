@@ -0,0 +1,89 @@
+package com.vres.controller;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.vres.dto.QrImageDto;
+import com.vres.generator.CodeGeneratorService;
+import com.vres.service.QrLookupThrottle;
+import com.vres.service.VoucherService;
+
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+
+// Public QR endpoint linked from the voucher SMS. The voucher code itself is the credential,
+// so lookups are throttled per client IP (QrLookupThrottle) to keep codes from being enumerated.
+// Redirects to a presigned URL when the image is in S3, otherwise serves the image.
+@RestController
+@RequestMapping("/vres/qr")
+public class QrCodeController {
+
+    private static final Logger logger = LoggerFactory.getLogger(QrCodeController.class);
+
+    @Autowired
+    private VoucherService voucherService;
+
+    @Autowired
+    private QrLookupThrottle qrLookupThrottle;
+
+    @Autowired
+    private CodeGeneratorService codeGeneratorService;
+
+    @Value("${vres.qr.cache.max-age-seconds:300}")
+    private long qrMaxAgeSeconds;
+
+    @GetMapping(value = "/{voucherCode}", produces = MediaType.IMAGE_PNG_VALUE)
+    public ResponseEntity<byte[]> getQrCode(@PathVariable String voucherCode, WebRequest webRequest,
+            HttpServletRequest request) {
+        // Outside the try: a throttle rejection must reach the 429 handler
+        String clientIp = request.getRemoteAddr();
+        qrLookupThrottle.checkLookup(clientIp);
+        // A mistyped code is answered like an unknown one, without a query
+        if (!codeGeneratorService.hasValidCheckCharacter(CodeGeneratorService.normalize(voucherCode))) {
+            qrLookupThrottle.recordMiss(clientIp);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Voucher not found.");
+        }
+        try {
+            QrImageDto qrImage = voucherService.getQrCodeImageByCode(voucherCode);
+            if (qrImage.getRedirectUrl() != null) {
+                // Presigned URLs expire, so the redirect itself must not be cached
+                return ResponseEntity.status(HttpStatus.FOUND)
+                        .location(URI.create(qrImage.getRedirectUrl()))
+                        .cacheControl(CacheControl.noStore())
+                        .build();
+            }
+            // Answers 304 Not Modified when If-None-Match carries the current ETag
+            if (webRequest.checkNotModified(qrImage.getEtag())) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_PNG)
+                    .eTag(qrImage.getEtag())
+                    .cacheControl(CacheControl.maxAge(qrMaxAgeSeconds, TimeUnit.SECONDS).cachePrivate())
+                    .header("Content-Disposition", "inline; filename=\"voucher-qr.png\"")
+                    .body(qrImage.getBytes());
+        } catch (EntityNotFoundException | IllegalStateException e) {
+            // Redeemed or expired codes look exactly like unknown ones, so the answer reveals nothing
+            qrLookupThrottle.recordMiss(clientIp);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Voucher not found.");
+        } catch (Exception e) {
+            logger.error("QR code retrieval failed: {}", e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error while retrieving QR code.");
+        }
+    }
+}
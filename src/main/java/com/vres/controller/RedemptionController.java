@@ -1,16 +1,31 @@
 package com.vres.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.vres.config.CustomUserDetails;
 import com.vres.dto.GenericResponse;
+import com.vres.dto.RedemptionInitiatedResponse;
+import com.vres.dto.RedemptionSyncRequest;
+import com.vres.dto.RedemptionSyncResponse;
+import com.vres.dto.SmsDeliveryDto;
 import com.vres.dto.VoucherConfirmRedemptionRequest;
 import com.vres.dto.VoucherInitiateRedemptionRequest;
+import com.vres.service.IdempotencyService;
 import com.vres.service.RedemptionService;
+import com.vres.service.RedemptionSyncService;
+import com.vres.service.SmsOutboxService;
 
 @RestController
 @RequestMapping("/vres/redemption")
@@ -19,17 +34,72 @@ public class RedemptionController {
     @Autowired
     private RedemptionService redemptionService;
 
+    @Autowired
+    private SmsOutboxService smsOutboxService;
+
+    @Autowired
+    private RedemptionSyncService redemptionSyncService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    // Retries carrying the same Idempotency-Key replay the first response instead of re-sending the OTP
     @PostMapping("/initiate")
-    public ResponseEntity<GenericResponse> initiateRedemption(@RequestBody VoucherInitiateRedemptionRequest request) {
-    	redemptionService.initiateRedemption(request.getVoucherCode(), request.getVendorId());
-        return ResponseEntity.ok(new GenericResponse("Redemption initiated, OTP sent to beneficiary."));
+    public ResponseEntity<?> initiateRedemption(@RequestBody VoucherInitiateRedemptionRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal CustomUserDetails principal) {
+        return idempotencyService.execute("redemption-initiate", idempotencyKey, request, () -> {
+            Long deliveryId = redemptionService.initiateRedemption(request.getVoucherCode(), request.getVendorId(), principal.getUser().getId());
+            String message = deliveryId != null ? "Redemption initiated, OTP queued for delivery to beneficiary."
+                    : "Redemption initiated. Beneficiary has no phone number; OTP was not sent.";
+            return ResponseEntity.ok(new RedemptionInitiatedResponse(message, deliveryId));
+        });
+    }
+
+    @GetMapping("/otp-deliveries/{deliveryId}")
+    public ResponseEntity<SmsDeliveryDto> getOtpDelivery(@PathVariable long deliveryId) {
+        return ResponseEntity.ok(smsOutboxService.getDelivery(deliveryId));
     }
     
 
     @PostMapping("/confirm")
-    public ResponseEntity<GenericResponse> confirmRedemption(@RequestBody VoucherConfirmRedemptionRequest request) {
-        redemptionService.confirmRedemption(request.getVoucherCode(), request.getOtp(), request.getVendorId(), request.getGeo_lat(), request.getGeo_lon(), request.getDeviceFingerprint());
-        return ResponseEntity.ok(new GenericResponse("Voucher redeemed successfully."));
+    public ResponseEntity<?> confirmRedemption(@RequestBody VoucherConfirmRedemptionRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal CustomUserDetails principal) {
+        return idempotencyService.execute("redemption-confirm", idempotencyKey, request, () -> {
+            redemptionService.confirmRedemption(request.getVoucherCode(), request.getOtp(), request.getVendorId(), principal.getUser().getId(), request.getGeo_lat(), request.getGeo_lon(), request.getDeviceFingerprint());
+            return ResponseEntity.ok(new GenericResponse("Voucher redeemed successfully."));
+        });
+    }
+
+    // Bulk upload of OTP-confirmed redemptions recorded by an enrolled vendor device; results are per record.
+    // The vendor is the authenticated user; a vendorId in the body must match it.
+    @PreAuthorize("hasRole('VENDOR')")
+    @PostMapping("/sync")
+    public ResponseEntity<RedemptionSyncResponse> syncRedemptions(@RequestBody RedemptionSyncRequest request,
+            @AuthenticationPrincipal CustomUserDetails principal) {
+        int vendorId = principal.getUser().getId();
+        if (request.getVendorId() != null && request.getVendorId() != vendorId) {
+            throw new SecurityException("Redemption records can only be synced for the signed-in vendor.");
+        }
+        return ResponseEntity.ok(redemptionSyncService.sync(vendorId, request.getKeyId(), request.getRecords()));
     }
-}
 
+    // Enrols a device: a new sync key is emailed to the vendor's registered address, never returned here
+    @PreAuthorize("hasRole('VENDOR')")
+    @PostMapping("/sync/keys")
+    public ResponseEntity<GenericResponse> issueSyncKey(@AuthenticationPrincipal CustomUserDetails principal) {
+        redemptionSyncService.issueSyncKey(principal.getUser());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new GenericResponse("A device sync key has been sent to your registered email address."));
+    }
+
+    // Revokes a device's sync key, e.g. when the device is lost; its uploads are rejected from then on
+    @PreAuthorize("hasRole('VENDOR')")
+    @DeleteMapping("/sync/keys/{keyId}")
+    public ResponseEntity<GenericResponse> revokeSyncKey(@PathVariable int keyId,
+            @AuthenticationPrincipal CustomUserDetails principal) {
+        redemptionSyncService.revokeSyncKey(principal.getUser().getId(), keyId);
+        return ResponseEntity.ok(new GenericResponse("Sync key " + keyId + " has been revoked."));
+    }
+}
@@ -1,6 +1,10 @@
 package com.vres.controller;
 
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -9,8 +13,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping; // Import PostMapping
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.vres.dto.QrImageDto;
 import com.vres.service.VoucherService;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -22,6 +28,9 @@ public class VoucherController {
     @Autowired
     private VoucherService voucherService;
 
+    @Value("${vres.qr.cache.max-age-seconds:300}")
+    private long qrMaxAgeSeconds;
+
     @GetMapping(value = "/{voucherId}/code", produces = MediaType.TEXT_PLAIN_VALUE)
     public ResponseEntity<String> getVoucherCode(@PathVariable Integer voucherId) {
         try {
@@ -43,16 +52,22 @@ public class VoucherController {
     }
 
     @GetMapping(value = "/{voucherId}/qrcode", produces = MediaType.IMAGE_PNG_VALUE)
-    public ResponseEntity<byte[]> getQrCodeImageBytes(@PathVariable Integer voucherId) {
+    public ResponseEntity<byte[]> getQrCodeImageBytes(@PathVariable Integer voucherId, WebRequest webRequest) {
         try {
-            byte[] qrCodeBytes = voucherService.getQrCodeImageBytes(voucherId);
-            if (qrCodeBytes == null || qrCodeBytes.length == 0) {
+            QrImageDto qrImage = voucherService.getQrCodeImage(voucherId);
+            if (qrImage.getBytes() == null || qrImage.getBytes().length == 0) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
             }
+            // Answers 304 Not Modified when If-None-Match carries the current ETag
+            if (webRequest.checkNotModified(qrImage.getEtag())) {
+                return null;
+            }
             return ResponseEntity.ok()
                     .contentType(MediaType.IMAGE_PNG)
+                    .eTag(qrImage.getEtag())
+                    .cacheControl(CacheControl.maxAge(qrMaxAgeSeconds, TimeUnit.SECONDS).cachePrivate())
                     .header("Content-Disposition", "inline; filename=\"voucher-" + voucherId + ".png\"")
-                    .body(qrCodeBytes);
+                    .body(qrImage.getBytes());
         } catch (EntityNotFoundException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Voucher or QR Code not found for ID: " + voucherId);
         } catch (IllegalStateException e) {
@@ -0,0 +1,29 @@
+package com.vres.dto;
+
+// A voucher's QR image together with the ETag the QR endpoints send for it,
+// or, when the image is served straight from the object store, the URL to redirect to
+public class QrImageDto {
+
+    private final byte[] bytes;
+    private final String etag;
+    private final String redirectUrl;
+
+    public QrImageDto(byte[] bytes, String etag) {
+        this(bytes, etag, null);
+    }
+
+    private QrImageDto(byte[] bytes, String etag, String redirectUrl) {
+        this.bytes = bytes;
+        this.etag = etag;
+        this.redirectUrl = redirectUrl;
+    }
+
+    public static QrImageDto redirect(String redirectUrl) {
+        return new QrImageDto(null, null, redirectUrl);
+    }
+
+    // Getters
+    public byte[] getBytes() { return bytes; }
+    public String getEtag() { return etag; }
+    public String getRedirectUrl() { return redirectUrl; }
+}
@@ -0,0 +1,17 @@
+package com.vres.dto;
+
+// Response to POST /vres/redemption/initiate; the OTP SMS is delivered asynchronously,
+// its progress is available at GET /vres/redemption/otp-deliveries/{deliveryId}
+public class RedemptionInitiatedResponse extends GenericResponse {
+
+    private Long deliveryId;
+
+    public RedemptionInitiatedResponse(String message, Long deliveryId) {
+        super(message);
+        this.deliveryId = deliveryId;
+    }
+
+    // Getter and Setter
+    public Long getDeliveryId() { return deliveryId; }
+    public void setDeliveryId(Long deliveryId) { this.deliveryId = deliveryId; }
+}
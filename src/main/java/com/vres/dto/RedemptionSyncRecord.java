@@ -0,0 +1,31 @@
+package com.vres.dto;
+
+// One redemption captured by a vendor device and uploaded through POST /vres/redemption/sync.
+// otp is the one the beneficiary received from the initiate call; the record is only applied while it is live.
+// signature is the hex HMAC-SHA256 of RedemptionSyncService.canonical(vendorId, record) under the device's sync key.
+// redeemedAt must fall between the key's issuance and the upload, within the configured offline window.
+public class RedemptionSyncRecord {
+    private String voucherCode;
+    private long redeemedAt; // epoch millis on the device
+    private Double geo_lat;
+    private Double geo_lon;
+    private String deviceFingerprint;
+    private String otp;
+    private String signature;
+
+    // Getters and Setters
+    public String getVoucherCode() { return voucherCode; }
+    public void setVoucherCode(String voucherCode) { this.voucherCode = voucherCode; }
+    public long getRedeemedAt() { return redeemedAt; }
+    public void setRedeemedAt(long redeemedAt) { this.redeemedAt = redeemedAt; }
+    public Double getGeo_lat() { return geo_lat; }
+    public void setGeo_lat(Double geo_lat) { this.geo_lat = geo_lat; }
+    public Double getGeo_lon() { return geo_lon; }
+    public void setGeo_lon(Double geo_lon) { this.geo_lon = geo_lon; }
+    public String getDeviceFingerprint() { return deviceFingerprint; }
+    public void setDeviceFingerprint(String deviceFingerprint) { this.deviceFingerprint = deviceFingerprint; }
+    public String getOtp() { return otp; }
+    public void setOtp(String otp) { this.otp = otp; }
+    public String getSignature() { return signature; }
+    public void setSignature(String signature) { this.signature = signature; }
+}
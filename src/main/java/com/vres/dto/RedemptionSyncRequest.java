@@ -0,0 +1,17 @@
+package com.vres.dto;
+
+import java.util.List;
+
+public class RedemptionSyncRequest {
+    private Integer vendorId; // optional; must match the signed-in vendor when given
+    private Integer keyId; // id of the device's sync key, from the sync key email
+    private List<RedemptionSyncRecord> records;
+
+    // Getters and Setters
+    public Integer getVendorId() { return vendorId; }
+    public void setVendorId(Integer vendorId) { this.vendorId = vendorId; }
+    public Integer getKeyId() { return keyId; }
+    public void setKeyId(Integer keyId) { this.keyId = keyId; }
+    public List<RedemptionSyncRecord> getRecords() { return records; }
+    public void setRecords(List<RedemptionSyncRecord> records) { this.records = records; }
+}
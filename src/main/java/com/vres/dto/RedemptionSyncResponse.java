@@ -0,0 +1,26 @@
+package com.vres.dto;
+
+import java.util.List;
+
+public class RedemptionSyncResponse {
+    private int redeemed;
+    private int rejected;
+    private List<RedemptionSyncResult> results;
+
+    public RedemptionSyncResponse(List<RedemptionSyncResult> results) {
+        this.results = results;
+        for (RedemptionSyncResult result : results) {
+            if (RedemptionSyncResult.REDEEMED.equals(result.getStatus())
+                    || RedemptionSyncResult.ALREADY_REDEEMED.equals(result.getStatus())) {
+                redeemed++;
+            } else {
+                rejected++;
+            }
+        }
+    }
+
+    // Getters
+    public int getRedeemed() { return redeemed; }
+    public int getRejected() { return rejected; }
+    public List<RedemptionSyncResult> getResults() { return results; }
+}
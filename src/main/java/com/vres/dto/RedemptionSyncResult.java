@@ -0,0 +1,38 @@
+package com.vres.dto;
+
+// Outcome of one uploaded redemption record, in request order
+public class RedemptionSyncResult {
+
+    // REDEEMED and ALREADY_REDEEMED (an earlier upload of the same record) are final successes;
+    // every other status is a rejection the device should not retry as is
+    public static final String REDEEMED = "REDEEMED";
+    public static final String ALREADY_REDEEMED = "ALREADY_REDEEMED";
+    public static final String INVALID_SIGNATURE = "INVALID_SIGNATURE";
+    public static final String DUPLICATE_IN_BATCH = "DUPLICATE_IN_BATCH";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String NOT_AUTHORIZED = "NOT_AUTHORIZED";
+    public static final String NOT_REDEEMABLE = "NOT_REDEEMABLE";
+    public static final String OUTSIDE_VALIDITY = "OUTSIDE_VALIDITY";
+    public static final String INVALID_TIMESTAMP = "INVALID_TIMESTAMP";
+    public static final String STALE = "STALE";
+    public static final String INVALID_OTP = "INVALID_OTP";
+    public static final String THROTTLED = "THROTTLED";
+
+    private String voucherCode;
+    private String status;
+    private String message;
+
+    public RedemptionSyncResult(String voucherCode, String status, String message) {
+        this.voucherCode = voucherCode;
+        this.status = status;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public String getVoucherCode() { return voucherCode; }
+    public void setVoucherCode(String voucherCode) { this.voucherCode = voucherCode; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
@@ -0,0 +1,40 @@
+package com.vres.dto;
+
+import java.sql.Date;
+
+/**
+ * Everything a redemption step needs about a voucher, read in one query
+ * (see VouchersRepository.findRedemptionView): code, status, validity window
+ * and beneficiary phone. Immutable and vendor-independent, so VoucherCodeCache
+ * can share one instance across requests. OTPs live in the OtpStore.
+ */
+public class RedemptionView {
+
+    private final Integer voucherId;
+    private final String stringCode;
+    private final String status;
+    private final Integer projectId;
+    private final Date validFrom;
+    private final Date validTill;
+    private final String beneficiaryPhone;
+
+    public RedemptionView(Integer voucherId, String stringCode, String status, Integer projectId,
+                          Date validFrom, Date validTill, String beneficiaryPhone) {
+        this.voucherId = voucherId;
+        this.stringCode = stringCode;
+        this.status = status;
+        this.projectId = projectId;
+        this.validFrom = validFrom;
+        this.validTill = validTill;
+        this.beneficiaryPhone = beneficiaryPhone;
+    }
+
+    // Getters
+    public Integer getVoucherId() { return voucherId; }
+    public String getStringCode() { return stringCode; }
+    public String getStatus() { return status; }
+    public Integer getProjectId() { return projectId; }
+    public Date getValidFrom() { return validFrom; }
+    public Date getValidTill() { return validTill; }
+    public String getBeneficiaryPhone() { return beneficiaryPhone; }
+}
@@ -0,0 +1,28 @@
+package com.vres.dto;
+
+import java.time.LocalDateTime;
+
+// Delivery state of an SMS queued in the outbox (e.g. a redemption OTP)
+public class SmsDeliveryDto {
+
+    private long deliveryId;
+    private String status;
+    private int attempts;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+
+    // Getters and Setters
+    public long getDeliveryId() { return deliveryId; }
+    public void setDeliveryId(long deliveryId) { this.deliveryId = deliveryId; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getSentAt() { return sentAt; }
+    public void setSentAt(LocalDateTime sentAt) { this.sentAt = sentAt; }
+}
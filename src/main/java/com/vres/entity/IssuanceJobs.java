@@ -0,0 +1,93 @@
+package com.vres.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * A voucher issuance run submitted through POST /vres/projects/{projectId}/vouchers.
+ * The beneficiary list is stored with the job so an interrupted run can be resumed;
+ * vouchers already present for those beneficiaries act as the checkpoint.
+ */
+@Entity
+@Table(name = "issuance_jobs", indexes = @Index(name = "idx_issuance_jobs_status", columnList = "status"))
+public class IssuanceJobs {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "project_id", nullable = false)
+    private Integer projectId;
+
+    // QUEUED, RUNNING, COMPLETED or FAILED
+    @Column(name = "status", nullable = false)
+    private String status;
+
+    // Comma-separated beneficiary IDs requested for this job
+    @Column(name = "beneficiary_ids", columnDefinition = "MEDIUMTEXT", nullable = false)
+    private String beneficiaryIds;
+
+    @Column(name = "total", nullable = false)
+    private int total;
+
+    @Column(name = "issued", nullable = false)
+    private int issued;
+
+    @Column(name = "failed", nullable = false)
+    private int failed;
+
+    // Vouchers that already existed when the current attempt started; used for the rate
+    @Column(name = "issued_at_start", nullable = false)
+    private int issuedAtStart;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public IssuanceJobs() {}
+
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+    public Integer getProjectId() { return projectId; }
+    public void setProjectId(Integer projectId) { this.projectId = projectId; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getBeneficiaryIds() { return beneficiaryIds; }
+    public void setBeneficiaryIds(String beneficiaryIds) { this.beneficiaryIds = beneficiaryIds; }
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+    public int getIssued() { return issued; }
+    public void setIssued(int issued) { this.issued = issued; }
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+    public int getIssuedAtStart() { return issuedAtStart; }
+    public void setIssuedAtStart(int issuedAtStart) { this.issuedAtStart = issuedAtStart; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -0,0 +1,69 @@
+package com.vres.entity;
+
+import java.sql.Date;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Per-project counters maintained by ProjectStatsWriter in the same transaction
+ * as the writes they count. Rows are written and read through JDBC; the entity
+ * only declares the table for schema generation.
+ */
+@Entity
+@Table(name = "project_stats")
+public class ProjectStats {
+
+    @Id
+    @Column(name = "project_id")
+    private Integer projectId;
+
+    @Column(name = "beneficiaries_total", nullable = false)
+    private long beneficiariesTotal;
+
+    @Column(name = "beneficiaries_approved", nullable = false)
+    private long beneficiariesApproved;
+
+    @Column(name = "vouchers_total", nullable = false)
+    private long vouchersTotal;
+
+    @Column(name = "vouchers_issued", nullable = false)
+    private long vouchersIssued;
+
+    @Column(name = "vouchers_redeemed", nullable = false)
+    private long vouchersRedeemed;
+
+    @Column(name = "redemptions_total", nullable = false)
+    private long redemptionsTotal;
+
+    @Column(name = "last_redeemed_at")
+    private Date lastRedeemedAt;
+
+    // Last time the row was rebuilt from the base tables
+    @Column(name = "reconciled_at")
+    private LocalDateTime reconciledAt;
+
+    public ProjectStats() {}
+
+    public Integer getProjectId() { return projectId; }
+    public void setProjectId(Integer projectId) { this.projectId = projectId; }
+    public long getBeneficiariesTotal() { return beneficiariesTotal; }
+    public void setBeneficiariesTotal(long beneficiariesTotal) { this.beneficiariesTotal = beneficiariesTotal; }
+    public long getBeneficiariesApproved() { return beneficiariesApproved; }
+    public void setBeneficiariesApproved(long beneficiariesApproved) { this.beneficiariesApproved = beneficiariesApproved; }
+    public long getVouchersTotal() { return vouchersTotal; }
+    public void setVouchersTotal(long vouchersTotal) { this.vouchersTotal = vouchersTotal; }
+    public long getVouchersIssued() { return vouchersIssued; }
+    public void setVouchersIssued(long vouchersIssued) { this.vouchersIssued = vouchersIssued; }
+    public long getVouchersRedeemed() { return vouchersRedeemed; }
+    public void setVouchersRedeemed(long vouchersRedeemed) { this.vouchersRedeemed = vouchersRedeemed; }
+    public long getRedemptionsTotal() { return redemptionsTotal; }
+    public void setRedemptionsTotal(long redemptionsTotal) { this.redemptionsTotal = redemptionsTotal; }
+    public Date getLastRedeemedAt() { return lastRedeemedAt; }
+    public void setLastRedeemedAt(Date lastRedeemedAt) { this.lastRedeemedAt = lastRedeemedAt; }
+    public LocalDateTime getReconciledAt() { return reconciledAt; }
+    public void setReconciledAt(LocalDateTime reconciledAt) { this.reconciledAt = reconciledAt; }
+}
@@ -7,12 +7,15 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "project_user")
+@Table(name = "project_user",
+       // Covers the active-vendor lookups used to authorize redemptions
+       indexes = @Index(name = "idx_project_user_vendor", columnList = "project_id, user_id, vendor_status"))
 public class ProjectUser {
 	@Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,37 @@
+package com.vres.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Redemption OTPs held by JdbcOtpStore (vres.otp.store=jdbc). Rows are written
+ * and read through JDBC; the entity only declares the table for schema generation.
+ */
+@Entity
+@Table(name = "redemption_otps", indexes = @Index(name = "idx_redemption_otps_expires_at", columnList = "expires_at"))
+public class RedemptionOtps {
+
+    @Id
+    @Column(name = "voucher_code")
+    private String voucherCode;
+
+    @Column(name = "otp", nullable = false, length = 16)
+    private String otp;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public RedemptionOtps() {}
+
+    public String getVoucherCode() { return voucherCode; }
+    public void setVoucherCode(String voucherCode) { this.voucherCode = voucherCode; }
+    public String getOtp() { return otp; }
+    public void setOtp(String otp) { this.otp = otp; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -15,9 +15,12 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 @Entity
-@Table(name = "vouchers")
+// One voucher per beneficiary per project; JdbcBatchWriter relies on this to skip duplicate issuance
+@Table(name = "vouchers", uniqueConstraints = @UniqueConstraint(name = "uk_vouchers_project_beneficiary",
+        columnNames = {"project_id", "beneficiary_id"}))
 public class Vouchers {
 
     @Id
@@ -2,8 +2,10 @@ package com.vres.exception; // Or your actual exception package
 
 import org.slf4j.Logger; // Import Logger
 import org.slf4j.LoggerFactory; // Import LoggerFactory
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException; // Import BadCredentialsException
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -52,6 +54,22 @@ public class GlobalExceptionHandler {
     }
 
 
+    /**
+     * Handles SecurityException and AccessDeniedException (caller lacks the role,
+     * or acts for another user or a project it is not assigned to).
+     * Returns 403 Forbidden.
+     */
+    @ExceptionHandler({SecurityException.class, AccessDeniedException.class})
+    public ResponseEntity<StructuredErrorResponse> handleForbidden(RuntimeException ex, WebRequest request) {
+        String path = request.getDescription(false).replace("uri=", "");
+        logger.warn("Access denied: {} for path: {}", ex.getMessage(), path);
+        StructuredErrorResponse error = new StructuredErrorResponse(
+                "FORBIDDEN",
+                ex.getMessage()
+        );
+        return new ResponseEntity<>(error, HttpStatus.FORBIDDEN); // 403
+    }
+
     /**
      * Handles IllegalStateException (like date validation errors, inactive accounts).
      * Returns 400 Bad Request.
@@ -76,6 +94,39 @@ public class GlobalExceptionHandler {
         );
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST); // 400 Bad Request
     }
+    /**
+     * Handles TooManyAttemptsException (attempt throttling on redemption).
+     * Returns 429 Too Many Requests with Retry-After.
+     */
+    @ExceptionHandler(TooManyAttemptsException.class)
+    public ResponseEntity<StructuredErrorResponse> handleTooManyAttempts(TooManyAttemptsException ex, WebRequest request) {
+        String path = request.getDescription(false).replace("uri=", "");
+        logger.warn("Attempt limit exceeded: {} for path: {}", ex.getMessage(), path);
+        StructuredErrorResponse error = new StructuredErrorResponse(
+                "TOO_MANY_ATTEMPTS",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error); // 429
+    }
+
+    /**
+     * Handles IdempotencyKeyConflictException (Idempotency-Key reused or still in flight).
+     * Returns 422 Unprocessable Entity or 409 Conflict.
+     */
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<StructuredErrorResponse> handleIdempotencyKeyConflict(IdempotencyKeyConflictException ex, WebRequest request) {
+        String path = request.getDescription(false).replace("uri=", "");
+        logger.warn("Idempotency key conflict: {} for path: {}", ex.getMessage(), path);
+        if (ex.isPayloadMismatch()) {
+            return new ResponseEntity<>(new StructuredErrorResponse("IDEMPOTENCY_KEY_REUSED", ex.getMessage()),
+                    HttpStatus.UNPROCESSABLE_ENTITY); // 422
+        }
+        return new ResponseEntity<>(new StructuredErrorResponse("IDEMPOTENCY_KEY_IN_USE", ex.getMessage()),
+                HttpStatus.CONFLICT); // 409
+    }
+
     /**
      * General fallback handler.
      * Returns 500 Internal Server Error.
@@ -0,0 +1,20 @@
+package com.vres.exception;
+
+/**
+ * Thrown when an Idempotency-Key cannot be honoured: it was already used for a
+ * different request body (mapped to 422), or the first request carrying it is
+ * still running (mapped to 409). See GlobalExceptionHandler.
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    private final boolean payloadMismatch;
+
+    public IdempotencyKeyConflictException(String message, boolean payloadMismatch) {
+        super(message);
+        this.payloadMismatch = payloadMismatch;
+    }
+
+    public boolean isPayloadMismatch() {
+        return payloadMismatch;
+    }
+}
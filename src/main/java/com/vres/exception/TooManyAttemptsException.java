@@ -0,0 +1,19 @@
+package com.vres.exception;
+
+/**
+ * Thrown when a caller exceeds an attempt limit; mapped to 429 Too Many Requests
+ * with a Retry-After header by GlobalExceptionHandler.
+ */
+public class TooManyAttemptsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyAttemptsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
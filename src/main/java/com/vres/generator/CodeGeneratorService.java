@@ -1,27 +1,175 @@
 package com.vres.generator;
 
-import org.springframework.stereotype.Service;
 import java.security.SecureRandom;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.vres.repository.VouchersRepository;
 
+/**
+ * Generates voucher codes of the form {@code VRES-<body><check>}.
+ * <p>
+ * The body is drawn from a configurable alphabet and is followed by a
+ * Luhn mod N check character, so a single mistyped character (and most
+ * adjacent swaps) can be detected without a database lookup. Codes are
+ * handed out in bulk by {@link #allocateCodes}, which checks uniqueness
+ * with one set-based query per round instead of one query per code.
+ */
 @Service
 public class CodeGeneratorService {
 
-    private static final String CHARACTERS = "23456789ABCDEFGHJKMNPQRSTUVWXYZ";
-    private static final int CODE_LENGTH = 4;
+    public static final String PREFIX = "VRES-";
+    public static final String DEFAULT_CHARACTERS = "23456789ABCDEFGHJKMNPQRSTUVWXYZ";
+
+    // A round whose candidates all collide means the code space is nearly full
+    private static final int MAX_ALLOCATION_ROUNDS = 32;
+
+    private final String characters;
+    private final int codeLength;
+    private final boolean checkDigit;
+    private final Function<Collection<String>, Collection<String>> existingCodeLookup;
     private final SecureRandom secureRandom = new SecureRandom();
 
-    public String generateUniqueCode() {
-        long seed = System.nanoTime() ^ UUID.randomUUID().getMostSignificantBits();
-        secureRandom.setSeed(seed);
+    @Autowired
+    public CodeGeneratorService(
+            VouchersRepository vouchersRepository,
+            @Value("${vres.voucher-code.length:6}") int codeLength,
+            @Value("${vres.voucher-code.alphabet:" + DEFAULT_CHARACTERS + "}") String characters,
+            @Value("${vres.voucher-code.check-digit:true}") boolean checkDigit) {
+        this(codeLength, characters, checkDigit, vouchersRepository::findExistingStringCodes);
+    }
+
+    /**
+     * @param existingCodeLookup returns the subset of the given codes that are already taken
+     */
+    public CodeGeneratorService(int codeLength, String characters, boolean checkDigit,
+                                Function<Collection<String>, Collection<String>> existingCodeLookup) {
+        if (codeLength < 1) {
+            throw new IllegalArgumentException("Voucher code length must be at least 1.");
+        }
+        if (characters == null || characters.length() < 2 || characters.chars().distinct().count() != characters.length()) {
+            throw new IllegalArgumentException("Voucher code alphabet must contain at least two distinct characters.");
+        }
+        if (!characters.equals(characters.toUpperCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("Voucher code alphabet must be upper case; codes are matched case-insensitively.");
+        }
+        this.codeLength = codeLength;
+        this.characters = characters;
+        this.checkDigit = checkDigit;
+        this.existingCodeLookup = existingCodeLookup;
+    }
+
+    /**
+     * Returns a random candidate code. Uniqueness is not checked; use
+     * {@link #allocateCodes} when the code is going to be issued.
+     */
+    public String randomCode() {
+        char[] body = new char[codeLength];
+        for (int i = 0; i < codeLength; i++) {
+            body[i] = characters.charAt(secureRandom.nextInt(characters.length()));
+        }
+        StringBuilder codeBuilder = new StringBuilder(PREFIX.length() + codeLength + 1)
+                .append(PREFIX)
+                .append(body);
+        if (checkDigit) {
+            codeBuilder.append(computeCheckCharacter(body));
+        }
+        return codeBuilder.toString();
+    }
 
-        StringBuilder codeBuilder = new StringBuilder("VRES-");
+    /**
+     * Allocates {@code count} codes that are not yet stored in the vouchers table.
+     */
+    public List<String> allocateCodes(int count) {
+        return allocateCodes(count, Collections.emptySet());
+    }
 
-        for (int i = 0; i < CODE_LENGTH; i++) {
-            int randomIndex = secureRandom.nextInt(CHARACTERS.length());
-            codeBuilder.append(CHARACTERS.charAt(randomIndex));
+    /**
+     * Allocates {@code count} codes that are neither stored in the vouchers table
+     * nor contained in {@code reserved} (codes handed out earlier but not yet persisted).
+     * Each round generates the missing number of candidates and checks them with a
+     * single lookup, so the number of queries grows with the collision rate rather
+     * than with {@code count}.
+     */
+    public List<String> allocateCodes(int count, Set<String> reserved) {
+        Set<String> allocated = new LinkedHashSet<>(count * 2);
+        int rounds = 0;
+        while (allocated.size() < count) {
+            if (++rounds > MAX_ALLOCATION_ROUNDS) {
+                throw new IllegalStateException("Could not allocate " + count + " unique voucher codes after "
+                        + MAX_ALLOCATION_ROUNDS + " rounds; increase vres.voucher-code.length.");
+            }
+            Set<String> candidates = new HashSet<>();
+            int missing = count - allocated.size();
+            int attempts = 0;
+            while (candidates.size() < missing && attempts++ < missing * 16) {
+                String candidate = randomCode();
+                if (!allocated.contains(candidate) && !reserved.contains(candidate)) {
+                    candidates.add(candidate);
+                }
+            }
+            if (!candidates.isEmpty()) {
+                candidates.removeAll(existingCodeLookup.apply(candidates));
+                allocated.addAll(candidates);
+            }
         }
+        return new ArrayList<>(allocated);
+    }
+
+    /**
+     * The canonical form of a code as typed or scanned: trimmed and upper case.
+     * Codes are matched case-insensitively by the database, so lookups, caches and
+     * limiters keyed by code must use this form.
+     */
+    public static String normalize(String code) {
+        return code == null ? null : code.strip().toUpperCase(Locale.ROOT);
+    }
 
-        return codeBuilder.toString(); 
+    /**
+     * Returns false if the code carries a check character that does not match
+     * its body. Codes issued before check characters were introduced (or with a
+     * different body length) are passed through for the database to decide.
+     * Expects a {@link #normalize normalized} code.
+     */
+    public boolean hasValidCheckCharacter(String code) {
+        if (!checkDigit || code == null || !code.startsWith(PREFIX)) {
+            return true;
+        }
+        String payload = code.substring(PREFIX.length());
+        if (payload.length() != codeLength + 1) {
+            return true;
+        }
+        char[] body = payload.substring(0, codeLength).toCharArray();
+        for (char c : body) {
+            if (characters.indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return computeCheckCharacter(body) == payload.charAt(codeLength);
+    }
+
+    // Luhn mod N over the configured alphabet
+    private char computeCheckCharacter(char[] body) {
+        int n = characters.length();
+        int factor = 2;
+        int sum = 0;
+        for (int i = body.length - 1; i >= 0; i--) {
+            int addend = factor * characters.indexOf(body[i]);
+            factor = (factor == 2) ? 1 : 2;
+            sum += (addend / n) + (addend % n);
+        }
+        int remainder = sum % n;
+        return characters.charAt((n - remainder) % n);
     }
-}
\ No newline at end of file
+}
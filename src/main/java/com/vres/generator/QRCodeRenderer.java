@@ -0,0 +1,249 @@
+package com.vres.generator;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.google.zxing.qrcode.encoder.QRCode;
+
+/**
+ * Renders voucher QR codes without going through BufferedImage/ImageIO.
+ * <p>
+ * PNGs are written as 1-bit grayscale straight from the zxing BitMatrix: rows
+ * are bit-packed into a per-thread scratch buffer, rows identical to the one
+ * above use the PNG "Up" filter (so they compress to almost nothing), and the
+ * result is deflated with a per-thread {@link Deflater}. The only allocation
+ * that outlives a call is the returned byte array. Output is deterministic for
+ * a given text and size.
+ */
+public final class QRCodeRenderer {
+
+    // Pixel size of the voucher QR PNGs sent to beneficiaries
+    public static final int VOUCHER_QR_SIZE = 300;
+
+    private static final int QUIET_ZONE = 4;
+
+    private static final Map<EncodeHintType, Object> HINTS = Map.of(
+            EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H, // High error correction
+            EncodeHintType.CHARACTER_SET, "UTF-8");
+
+    // QRCodeWriter keeps no state between calls, so one instance is shared
+    private static final QRCodeWriter WRITER = new QRCodeWriter();
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+    private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+    private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+
+    private static final byte FILTER_NONE = 0;
+    private static final byte FILTER_UP = 2;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private QRCodeRenderer() {}
+
+    /**
+     * Renders {@code text} as a 1-bit PNG of the given size (quiet zone included),
+     * laid out exactly like MatrixToImageWriter output for the same BitMatrix.
+     */
+    public static byte[] renderPng(String text, int width, int height) throws WriterException {
+        BitMatrix matrix = WRITER.encode(text, BarcodeFormat.QR_CODE, width, height, HINTS);
+        return writePng(matrix, SCRATCH.get());
+    }
+
+    /**
+     * Renders {@code text} as an SVG document. Dark modules are merged into
+     * horizontal runs and emitted as a single path, so the output scales to
+     * any size without resampling.
+     */
+    public static String renderSvg(String text, int size) throws WriterException {
+        QRCode code = Encoder.encode(text, ErrorCorrectionLevel.H, HINTS);
+        ByteMatrix modules = code.getMatrix();
+        int dimension = modules.getWidth() + 2 * QUIET_ZONE;
+
+        StringBuilder svg = new StringBuilder(4096)
+                .append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(size)
+                .append("\" height=\"").append(size)
+                .append("\" viewBox=\"0 0 ").append(dimension).append(' ').append(dimension)
+                .append("\" shape-rendering=\"crispEdges\">")
+                .append("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path fill=\"#000\" d=\"");
+        for (int y = 0; y < modules.getHeight(); y++) {
+            int x = 0;
+            while (x < modules.getWidth()) {
+                if (modules.get(x, y) != 1) {
+                    x++;
+                    continue;
+                }
+                int run = 1;
+                while (x + run < modules.getWidth() && modules.get(x + run, y) == 1) {
+                    run++;
+                }
+                svg.append('M').append(x + QUIET_ZONE).append(' ').append(y + QUIET_ZONE)
+                        .append('h').append(run).append("v1h-").append(run).append('z');
+                x += run;
+            }
+        }
+        return svg.append("\"/></svg>").toString();
+    }
+
+    // ===================== PNG encoding =====================
+
+    private static byte[] writePng(BitMatrix matrix, Scratch scratch) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int rowBytes = (width + 7) >>> 3;
+        int stride = rowBytes + 1;
+
+        byte[] raw = scratch.raw(stride * height);
+        byte[] previous = scratch.previousRow(rowBytes);
+        byte[] current = scratch.currentRow(rowBytes);
+        BitArray bits = scratch.bitArray(width);
+
+        for (int y = 0; y < height; y++) {
+            bits = matrix.getRow(y, bits);
+            packRow(bits, width, current);
+            int offset = y * stride;
+            if (y > 0 && Arrays.equals(current, 0, rowBytes, previous, 0, rowBytes)) {
+                raw[offset] = FILTER_UP;
+                Arrays.fill(raw, offset + 1, offset + stride, (byte) 0);
+            } else {
+                raw[offset] = FILTER_NONE;
+                System.arraycopy(current, 0, raw, offset + 1, rowBytes);
+                byte[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+        }
+        scratch.keepRows(previous, current, bits);
+
+        int compressedLength = scratch.deflate(raw, stride * height);
+
+        // signature + IHDR (13) + IDAT + IEND, each chunk carrying 12 bytes of framing
+        byte[] png = new byte[PNG_SIGNATURE.length + (12 + 13) + (12 + compressedLength) + 12];
+        int pos = 0;
+        System.arraycopy(PNG_SIGNATURE, 0, png, pos, PNG_SIGNATURE.length);
+        pos += PNG_SIGNATURE.length;
+
+        byte[] header = scratch.header;
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 1;  // bit depth
+        header[9] = 0;  // color type: grayscale
+        header[10] = 0; // compression
+        header[11] = 0; // filter method
+        header[12] = 0; // no interlace
+        pos = writeChunk(png, pos, IHDR, header, 13, scratch.crc);
+        pos = writeChunk(png, pos, IDAT, scratch.compressed, compressedLength, scratch.crc);
+        writeChunk(png, pos, IEND, header, 0, scratch.crc);
+        return png;
+    }
+
+    // BitMatrix marks dark modules as set; in 1-bit grayscale PNG a 1 bit is white
+    private static void packRow(BitArray bits, int width, byte[] out) {
+        int[] words = bits.getBitArray();
+        int outIndex = 0;
+        for (int x = 0; x < width; x += 8) {
+            int packed = 0;
+            for (int b = 0; b < 8; b++) {
+                int px = x + b;
+                boolean dark = px < width && (words[px >>> 5] & (1 << (px & 31))) != 0;
+                packed = (packed << 1) | (dark ? 0 : 1);
+            }
+            out[outIndex++] = (byte) packed;
+        }
+    }
+
+    private static int writeChunk(byte[] png, int pos, byte[] type, byte[] data, int length, CRC32 crc) {
+        writeInt(png, pos, length);
+        pos += 4;
+        System.arraycopy(type, 0, png, pos, 4);
+        pos += 4;
+        System.arraycopy(data, 0, png, pos, length);
+        pos += length;
+        crc.reset();
+        crc.update(type, 0, 4);
+        crc.update(data, 0, length);
+        writeInt(png, pos, (int) crc.getValue());
+        return pos + 4;
+    }
+
+    private static void writeInt(byte[] buffer, int pos, int value) {
+        buffer[pos] = (byte) (value >>> 24);
+        buffer[pos + 1] = (byte) (value >>> 16);
+        buffer[pos + 2] = (byte) (value >>> 8);
+        buffer[pos + 3] = (byte) value;
+    }
+
+    /**
+     * Per-thread buffers reused across renders. They only grow, so after the
+     * first render of a given size no further scratch allocation happens.
+     */
+    private static final class Scratch {
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        final CRC32 crc = new CRC32();
+        final byte[] header = new byte[13];
+        byte[] raw = new byte[0];
+        byte[] compressed = new byte[4096];
+        byte[] rowA = new byte[0];
+        byte[] rowB = new byte[0];
+        BitArray bitArray;
+
+        byte[] raw(int size) {
+            if (raw.length < size) {
+                raw = new byte[size];
+            }
+            return raw;
+        }
+
+        byte[] previousRow(int size) {
+            if (rowA.length < size) {
+                rowA = new byte[size];
+            }
+            return rowA;
+        }
+
+        byte[] currentRow(int size) {
+            if (rowB.length < size) {
+                rowB = new byte[size];
+            }
+            return rowB;
+        }
+
+        BitArray bitArray(int width) {
+            if (bitArray == null || bitArray.getSize() < width) {
+                bitArray = new BitArray(width);
+            }
+            return bitArray;
+        }
+
+        void keepRows(byte[] a, byte[] b, BitArray bits) {
+            rowA = a;
+            rowB = b;
+            bitArray = bits;
+        }
+
+        int deflate(byte[] input, int length) {
+            deflater.reset();
+            deflater.setInput(input, 0, length);
+            deflater.finish();
+            int total = 0;
+            while (!deflater.finished()) {
+                if (total == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                total += deflater.deflate(compressed, total, compressed.length - total);
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.vres.idempotency;
+
+import java.time.Instant;
+
+// What an IdempotencyStore holds for a key: an in-progress claim (statusCode 0) or a completed response
+public final class IdempotencyRecord {
+
+    private final String requestHash;
+    private final int statusCode;
+    private final String responseBody;
+    private final Instant expiresAt;
+
+    public IdempotencyRecord(String requestHash, int statusCode, String responseBody, Instant expiresAt) {
+        this.requestHash = requestHash;
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getRequestHash() { return requestHash; }
+    public int getStatusCode() { return statusCode; }
+    public String getResponseBody() { return responseBody; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public boolean isCompleted() { return statusCode != 0; }
+}
@@ -0,0 +1,40 @@
+package com.vres.idempotency;
+
+import java.time.Instant;
+
+/**
+ * Responses of idempotent requests, keyed by the client's {@code Idempotency-Key}
+ * (prefixed with the endpoint it was sent to).
+ * <p>
+ * A key is first claimed with {@link #begin}, which reserves it until a lease
+ * runs out; the caller then either {@link #complete}s it with the response to
+ * replay, or {@link #release}s it so a retry runs the request again.
+ * <p>
+ * Implementations are selected by {@code vres.idempotency.store} (see
+ * {@link com.vres.config.IdempotencyStoreConfiguration}): {@code memory}
+ * (default) or {@code jdbc}.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Claims {@code key} for a request with the given body hash until {@code leaseUntil}.
+     *
+     * @return {@code null} if the caller now owns the key and should run the
+     *         request, otherwise the live record already held for it (completed
+     *         or still in progress)
+     */
+    IdempotencyRecord begin(String key, String requestHash, Instant leaseUntil);
+
+    /**
+     * Stores the response for a key claimed by {@link #begin}, to be replayed until {@code expiresAt}.
+     */
+    void complete(String key, int statusCode, String responseBody, Instant expiresAt);
+
+    /**
+     * Drops a key claimed by {@link #begin} without storing a response.
+     */
+    void release(String key);
+
+    default void shutdown() {
+    }
+}
@@ -0,0 +1,60 @@
+package com.vres.idempotency;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * {@link IdempotencyStore} held in process memory: a bounded Caffeine cache
+ * whose entries expire at their own lease or replay deadline. A repeat is a
+ * single hash lookup; claims are atomic through the cache's map view.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, IdempotencyRecord> records;
+
+    public InMemoryIdempotencyStore(long maxEntries) {
+        this.records = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, IdempotencyRecord>() {
+                    @Override
+                    public long expireAfterCreate(String key, IdempotencyRecord record, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), record.getExpiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, IdempotencyRecord record, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, record, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, IdempotencyRecord record, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public IdempotencyRecord begin(String key, String requestHash, Instant leaseUntil) {
+        IdempotencyRecord claim = new IdempotencyRecord(requestHash, 0, null, leaseUntil);
+        Instant now = Instant.now();
+        IdempotencyRecord held = records.asMap().compute(key,
+                (k, existing) -> existing != null && existing.getExpiresAt().isAfter(now) ? existing : claim);
+        return held == claim ? null : held;
+    }
+
+    @Override
+    public void complete(String key, int statusCode, String responseBody, Instant expiresAt) {
+        records.asMap().computeIfPresent(key,
+                (k, claim) -> new IdempotencyRecord(claim.getRequestHash(), statusCode, responseBody, expiresAt));
+    }
+
+    @Override
+    public void release(String key) {
+        records.invalidate(key);
+    }
+}
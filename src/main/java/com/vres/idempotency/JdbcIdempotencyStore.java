@@ -0,0 +1,94 @@
+package com.vres.idempotency;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * {@link IdempotencyStore} backed by the {@code idempotency_keys} table, so a
+ * retry landing on another node (or after a restart) still replays the first
+ * response. Every operation is a single statement on the primary key; expired
+ * rows are taken over on claim and purged in bulk on a fixed interval.
+ */
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcIdempotencyStore.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduledExecutorService purger;
+
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate, long purgeIntervalSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.purger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "vres-idempotency-purge");
+            t.setDaemon(true);
+            return t;
+        });
+        purger.scheduleWithFixedDelay(this::purgeExpired, purgeIntervalSeconds, purgeIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public IdempotencyRecord begin(String key, String requestHash, Instant leaseUntil) {
+        Timestamp now = Timestamp.from(Instant.now());
+        // A second pass covers a row purged or released between the claim attempts and the read
+        for (int pass = 0; pass < 2; pass++) {
+            // Plain INSERT: with the driver's default found-rows counting, an upsert reports 1 for a duplicate too
+            try {
+                jdbcTemplate.update("INSERT INTO idempotency_keys (idem_key, request_hash, status_code, response_body, expires_at) "
+                        + "VALUES (?, ?, 0, NULL, ?)", key, requestHash, Timestamp.from(leaseUntil));
+                return null;
+            } catch (DuplicateKeyException e) {
+                // Held already; take it over below if it has expired
+            }
+            if (jdbcTemplate.update("UPDATE idempotency_keys SET request_hash = ?, status_code = 0, response_body = NULL, expires_at = ? "
+                    + "WHERE idem_key = ? AND expires_at <= ?",
+                    requestHash, Timestamp.from(leaseUntil), key, now) == 1) {
+                return null;
+            }
+            List<IdempotencyRecord> held = jdbcTemplate.query(
+                    "SELECT request_hash, status_code, response_body, expires_at FROM idempotency_keys WHERE idem_key = ? AND expires_at > ?",
+                    (rs, rowNum) -> new IdempotencyRecord(rs.getString("request_hash"), rs.getInt("status_code"),
+                            rs.getString("response_body"), rs.getTimestamp("expires_at").toInstant()),
+                    key, now);
+            if (!held.isEmpty()) {
+                return held.get(0);
+            }
+        }
+        throw new IllegalStateException("Could not claim idempotency key: " + key);
+    }
+
+    @Override
+    public void complete(String key, int statusCode, String responseBody, Instant expiresAt) {
+        jdbcTemplate.update("UPDATE idempotency_keys SET status_code = ?, response_body = ?, expires_at = ? WHERE idem_key = ?",
+                statusCode, responseBody, Timestamp.from(expiresAt), key);
+    }
+
+    @Override
+    public void release(String key) {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE idem_key = ? AND status_code = 0", key);
+    }
+
+    @Override
+    public void shutdown() {
+        purger.shutdownNow();
+    }
+
+    void purgeExpired() {
+        try {
+            int purged = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at <= ?", Timestamp.from(Instant.now()));
+            if (purged > 0) {
+                logger.debug("Purged {} expired idempotency keys", purged);
+            }
+        } catch (Exception e) {
+            logger.warn("Purging expired idempotency keys failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.vres.otp;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: {@value #LEVELS} levels of {@value #SLOTS} slots,
+ * level {@code n} slots spanning {@code 64^n} ticks. Scheduling, cancelling and
+ * expiring a timer are O(1); a timer is moved down a level at most
+ * {@code LEVELS - 1} times on its way to expiry.
+ * <p>
+ * Deadlines further out than {@code 64^LEVELS} ticks are clamped to that
+ * horizon. Not thread-safe; callers serialize access.
+ */
+final class HierarchicalTimingWheel<T> {
+
+    static final int SLOTS = 64;
+    static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final long HORIZON = 1L << (SLOT_BITS * LEVELS);
+
+    // Circular doubly-linked lists with a sentinel per slot
+    private final Timer<T>[][] slots;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    HierarchicalTimingWheel(long startTick) {
+        slots = new Timer[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timer<T> sentinel = new Timer<>(null, 0);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                slots[level][slot] = sentinel;
+            }
+        }
+        currentTick = startTick;
+    }
+
+    static final class Timer<T> {
+        final T value;
+        long deadline;
+        Timer<T> prev;
+        Timer<T> next;
+
+        Timer(T value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+    }
+
+    long currentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Schedules {@code value} to expire at {@code deadlineTick}. Deadlines that
+     * are already due expire on the next tick.
+     */
+    Timer<T> schedule(T value, long deadlineTick) {
+        long deadline = Math.max(deadlineTick, currentTick + 1);
+        deadline = Math.min(deadline, currentTick + HORIZON - 1);
+        Timer<T> timer = new Timer<>(value, deadline);
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    void cancel(Timer<T> timer) {
+        if (timer.next != null) {
+            unlink(timer);
+            size--;
+        }
+    }
+
+    /**
+     * Advances the wheel tick by tick up to {@code tick}, handing every timer
+     * that comes due to {@code onExpire}.
+     */
+    void advanceTo(long tick, Consumer<T> onExpire) {
+        while (currentTick < tick) {
+            currentTick++;
+            // Entering a new period at a level: move that slot's timers down
+            for (int level = 1; level < LEVELS; level++) {
+                long mask = (1L << (SLOT_BITS * level)) - 1;
+                if ((currentTick & mask) != 0) {
+                    break;
+                }
+                cascade(slots[level][slotIndex(currentTick, level)]);
+            }
+            Timer<T> sentinel = slots[0][slotIndex(currentTick, 0)];
+            while (sentinel.next != sentinel) {
+                Timer<T> timer = sentinel.next;
+                unlink(timer);
+                size--;
+                onExpire.accept(timer.value);
+            }
+        }
+    }
+
+    private void cascade(Timer<T> sentinel) {
+        while (sentinel.next != sentinel) {
+            Timer<T> timer = sentinel.next;
+            unlink(timer);
+            place(timer);
+        }
+    }
+
+    private void place(Timer<T> timer) {
+        long delta = timer.deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        Timer<T> sentinel = slots[level][slotIndex(timer.deadline, level)];
+        timer.prev = sentinel.prev;
+        timer.next = sentinel;
+        sentinel.prev.next = timer;
+        sentinel.prev = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    private static int slotIndex(long tick, int level) {
+        return (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+    }
+}
@@ -0,0 +1,101 @@
+package com.vres.otp;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OtpStore} held in process memory. Lookups are a map read; expiry is
+ * driven by a {@link HierarchicalTimingWheel} advanced once per tick, so an
+ * expired OTP is reclaimed in O(1) without scanning. Reads also compare the
+ * exact expiry time, so an OTP never outlives its deadline by a partial tick.
+ */
+public class InMemoryOtpStore implements OtpStore {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final HierarchicalTimingWheel<Entry> wheel;
+    private final ScheduledExecutorService ticker;
+
+    public InMemoryOtpStore(long tickMillis) {
+        this.tickMillis = tickMillis;
+        this.startMillis = System.currentTimeMillis();
+        this.wheel = new HierarchicalTimingWheel<>(0);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "vres-otp-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::expireDue, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static final class Entry {
+        final String voucherCode;
+        final String otp;
+        final long expiresAtMillis;
+        HierarchicalTimingWheel.Timer<Entry> timer;
+
+        Entry(String voucherCode, String otp, long expiresAtMillis) {
+            this.voucherCode = voucherCode;
+            this.otp = otp;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    @Override
+    public void put(String voucherCode, String otp, Instant expiresAt) {
+        Entry entry = new Entry(voucherCode, otp, expiresAt.toEpochMilli());
+        synchronized (wheel) {
+            Entry previous = entries.put(voucherCode, entry);
+            if (previous != null) {
+                wheel.cancel(previous.timer);
+            }
+            entry.timer = wheel.schedule(entry, tickOf(entry.expiresAtMillis));
+        }
+    }
+
+    @Override
+    public String get(String voucherCode) {
+        Entry entry = entries.get(voucherCode);
+        if (entry == null || System.currentTimeMillis() >= entry.expiresAtMillis) {
+            return null;
+        }
+        return entry.otp;
+    }
+
+    @Override
+    public void remove(String voucherCode) {
+        synchronized (wheel) {
+            Entry entry = entries.remove(voucherCode);
+            if (entry != null) {
+                wheel.cancel(entry.timer);
+            }
+        }
+    }
+
+    /**
+     * Number of OTPs currently held, including any due in the current tick.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    void expireDue() {
+        long now = tickOf(System.currentTimeMillis());
+        synchronized (wheel) {
+            wheel.advanceTo(now, entry -> entries.remove(entry.voucherCode, entry));
+        }
+    }
+
+    // Ticks are rounded up so an entry is never reclaimed before its deadline
+    private long tickOf(long epochMillis) {
+        return Math.floorDiv(epochMillis - startMillis + tickMillis - 1, tickMillis);
+    }
+}
@@ -0,0 +1,71 @@
+package com.vres.otp;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * {@link OtpStore} backed by the {@code redemption_otps} table, for deployments
+ * where OTPs must survive a restart or be visible to every node through the
+ * shared database. Each operation is a single statement on the primary key;
+ * expired rows are ignored on read and purged in bulk on a fixed interval.
+ */
+public class JdbcOtpStore implements OtpStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcOtpStore.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduledExecutorService purger;
+
+    public JdbcOtpStore(JdbcTemplate jdbcTemplate, long purgeIntervalSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.purger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "vres-otp-purge");
+            t.setDaemon(true);
+            return t;
+        });
+        purger.scheduleWithFixedDelay(this::purgeExpired, purgeIntervalSeconds, purgeIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void put(String voucherCode, String otp, Instant expiresAt) {
+        jdbcTemplate.update("INSERT INTO redemption_otps (voucher_code, otp, expires_at) VALUES (?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE otp = VALUES(otp), expires_at = VALUES(expires_at)",
+                voucherCode, otp, Timestamp.from(expiresAt));
+    }
+
+    @Override
+    public String get(String voucherCode) {
+        List<String> otps = jdbcTemplate.queryForList(
+                "SELECT otp FROM redemption_otps WHERE voucher_code = ? AND expires_at > ?",
+                String.class, voucherCode, Timestamp.from(Instant.now()));
+        return otps.isEmpty() ? null : otps.get(0);
+    }
+
+    @Override
+    public void remove(String voucherCode) {
+        jdbcTemplate.update("DELETE FROM redemption_otps WHERE voucher_code = ?", voucherCode);
+    }
+
+    public void shutdown() {
+        purger.shutdownNow();
+    }
+
+    void purgeExpired() {
+        try {
+            int purged = jdbcTemplate.update("DELETE FROM redemption_otps WHERE expires_at <= ?", Timestamp.from(Instant.now()));
+            if (purged > 0) {
+                logger.debug("Purged {} expired redemption OTPs", purged);
+            }
+        } catch (Exception e) {
+            logger.warn("Purging expired redemption OTPs failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.vres.otp;
+
+import java.time.Instant;
+
+/**
+ * Short-lived redemption OTPs keyed by voucher code, kept apart from the
+ * vouchers table so issuing and checking an OTP never writes a voucher row.
+ * <p>
+ * Implementations are selected by {@code vres.otp.store} (see
+ * {@link com.vres.config.OtpStoreConfiguration}): {@code memory} (default),
+ * {@code jdbc} or {@code replicated}.
+ */
+public interface OtpStore {
+
+    /**
+     * Stores {@code otp} for the voucher until {@code expiresAt}, replacing any
+     * OTP issued earlier.
+     */
+    void put(String voucherCode, String otp, Instant expiresAt);
+
+    /**
+     * Returns the voucher's current OTP, or {@code null} if none was issued or it has expired.
+     */
+    String get(String voucherCode);
+
+    void remove(String voucherCode);
+}
@@ -0,0 +1,192 @@
+package com.vres.otp;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * {@link OtpStore} for multi-node deployments without a shared OTP table. Every
+ * node keeps its own {@link InMemoryOtpStore}; writes are applied locally and
+ * pushed asynchronously to each peer's {@code /vres/internal/otp/replicate}
+ * endpoint, signed with an HMAC of the shared secret. Reads are always local.
+ * <p>
+ * Messages carry the OTP itself, so peers must be reached over HTTPS. Each
+ * message is signed together with its send time; a receiver rejects messages
+ * older than {@code max-age} and any message it has already applied within that
+ * age, so a captured message cannot be replayed later to overwrite or delete a
+ * live OTP. Node clocks must agree to well within {@code max-age}.
+ * <p>
+ * Entries carry their absolute expiry, so every replica expires an OTP at the
+ * same moment (up to clock skew). A peer that is down while an OTP is issued
+ * does not get it; the beneficiary can start the redemption again.
+ */
+public class ReplicatedOtpStore implements OtpStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicatedOtpStore.class);
+
+    public static final String SIGNATURE_HEADER = "X-Vres-Signature";
+
+    private final InMemoryOtpStore local;
+    private final List<URI> peers;
+    private final byte[] secret;
+    private final long maxAgeMillis;
+    // Signatures of messages applied within the last maxAge, to refuse replays
+    private final Cache<String, Boolean> applied;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ReplicatedOtpStore(InMemoryOtpStore local, List<String> peerBaseUrls, String secret, Duration timeout, Duration maxAge) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("vres.otp.replication.secret must be set when vres.otp.store=replicated");
+        }
+        this.local = local;
+        this.peers = peerBaseUrls.stream()
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> URI.create(url.replaceAll("/+$", "") + "/vres/internal/otp/replicate"))
+                .toList();
+        for (URI peer : peers) {
+            if (!"https".equalsIgnoreCase(peer.getScheme())) {
+                throw new IllegalStateException("vres.otp.replication.peers must use https: " + peer);
+            }
+        }
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.maxAgeMillis = maxAge.toMillis();
+        // Twice the age, so a message sent slightly in the future is still remembered while it is accepted
+        this.applied = Caffeine.newBuilder()
+                .expireAfterWrite(2 * maxAgeMillis, TimeUnit.MILLISECONDS)
+                .build();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        logger.info("Replicating redemption OTPs to {} peer(s)", peers.size());
+    }
+
+    @Override
+    public void put(String voucherCode, String otp, Instant expiresAt) {
+        local.put(voucherCode, otp, expiresAt);
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("voucherCode", voucherCode);
+        payload.put("otp", otp);
+        payload.put("expiresAt", expiresAt.toEpochMilli());
+        replicate(payload);
+    }
+
+    @Override
+    public String get(String voucherCode) {
+        return local.get(voucherCode);
+    }
+
+    @Override
+    public void remove(String voucherCode) {
+        local.remove(voucherCode);
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("voucherCode", voucherCode);
+        replicate(payload);
+    }
+
+    /**
+     * Applies a write received from a peer to the local store, without forwarding it.
+     *
+     * @throws SecurityException if the signature does not match the body, or the
+     *         message is older than {@code max-age} or has already been applied
+     * @throws IllegalArgumentException if the body is not a replication message
+     */
+    public void applyReplica(String body, String signature) {
+        byte[] expected = sign(body).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = signature == null ? new byte[0] : signature.getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new SecurityException("Invalid OTP replication signature");
+        }
+        JsonNode payload;
+        try {
+            payload = objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed OTP replication message", e);
+        }
+        String voucherCode = payload.path("voucherCode").asText(null);
+        if (voucherCode == null) {
+            throw new IllegalArgumentException("OTP replication message has no voucherCode");
+        }
+        if (!payload.hasNonNull("sentAt")) {
+            throw new IllegalArgumentException("OTP replication message has no sentAt");
+        }
+        long age = System.currentTimeMillis() - payload.get("sentAt").asLong();
+        if (Math.abs(age) > maxAgeMillis) {
+            throw new SecurityException("Stale OTP replication message (age " + age + " ms)");
+        }
+        if (applied.asMap().putIfAbsent(signature, Boolean.TRUE) != null) {
+            throw new SecurityException("Replayed OTP replication message");
+        }
+        if (payload.hasNonNull("otp")) {
+            local.put(voucherCode, payload.get("otp").asText(), Instant.ofEpochMilli(payload.path("expiresAt").asLong()));
+        } else {
+            local.remove(voucherCode);
+        }
+    }
+
+    public void shutdown() {
+        local.shutdown();
+    }
+
+    private void replicate(ObjectNode payload) {
+        if (peers.isEmpty()) {
+            return;
+        }
+        payload.put("sentAt", System.currentTimeMillis());
+        String body = payload.toString();
+        String signature = sign(body);
+        for (URI peer : peers) {
+            HttpRequest request = HttpRequest.newBuilder(peer)
+                    .timeout(httpClient.connectTimeout().orElse(Duration.ofSeconds(2)))
+                    .header("Content-Type", "application/json")
+                    .header(SIGNATURE_HEADER, signature)
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (error != null) {
+                            logger.warn("OTP replication to {} failed: {}", peer, error.getMessage());
+                        } else if (response.statusCode() / 100 != 2) {
+                            logger.warn("OTP replication to {} rejected with HTTP {}", peer, response.statusCode());
+                        }
+                    });
+        }
+    }
+
+    private String sign(String body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.vres.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.vres.config.StreamingDataSourceConfiguration;
+import com.vres.dto.BeneficiaryDto;
+import com.vres.dto.RedemptionDto;
+import com.vres.dto.VoucherDto;
+
+/**
+ * Keyset-paginated reads of a project's beneficiaries, vouchers and redemptions
+ * for the dashboard list endpoints.
+ * <p>
+ * A page is the rows with {@code id > afterId}, in id order, so every page costs
+ * one index range scan however deep the client has paged. Rows are read from a
+ * forward-only cursor with a fixed fetch size (the streaming pool of
+ * {@link StreamingDataSourceConfiguration} enables {@code useCursorFetch}) and
+ * handed to the sink one at a time, so a page is never held in memory as a list.
+ */
+@Repository
+public class DashboardListReader {
+
+    private static final String BENEFICIARIES =
+            "SELECT id, name, phone, is_approved, department_id FROM beneficiaries "
+            + "WHERE project_id = ? AND id > ? ORDER BY id LIMIT ?";
+
+    private static final String VOUCHERS =
+            "SELECT id, project_id, beneficiary_id, string_code, qr_code_link, status, issued_at FROM vouchers "
+            + "WHERE project_id = ? AND id > ? ORDER BY id LIMIT ?";
+
+    private static final String REDEMPTIONS =
+            "SELECT r.id, r.voucher_id, r.vendor_id, r.redeemed_at, r.geo_lat, r.geo_lon, r.device_fingerprint "
+            + "FROM redemptions r JOIN vouchers v ON v.id = r.voucher_id "
+            + "WHERE v.project_id = ? AND r.id > ? ORDER BY r.id LIMIT ?";
+
+    @Autowired
+    @Qualifier(StreamingDataSourceConfiguration.STREAMING)
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${vres.dashboard.list.fetch-size:500}")
+    private int fetchSize;
+
+    private static final RowMapper<BeneficiaryDto> BENEFICIARY = (rs, rowNum) -> {
+        BeneficiaryDto dto = new BeneficiaryDto();
+        dto.setBeneficiaryId(rs.getInt("id"));
+        dto.setName(rs.getString("name"));
+        dto.setPhone(rs.getString("phone"));
+        dto.setStatus(rs.getBoolean("is_approved") ? "active" : "pending_approval");
+        dto.setDepartmentId(rs.getObject("department_id", Integer.class));
+        return dto;
+    };
+
+    private static final RowMapper<VoucherDto> VOUCHER = (rs, rowNum) -> {
+        Timestamp issuedAt = rs.getTimestamp("issued_at");
+        return new VoucherDto(rs.getInt("id"), rs.getInt("project_id"), rs.getInt("beneficiary_id"),
+                rs.getString("string_code"), rs.getString("qr_code_link"), rs.getString("status"),
+                issuedAt != null ? issuedAt.toLocalDateTime() : null);
+    };
+
+    private static final RowMapper<RedemptionDto> REDEMPTION = (rs, rowNum) -> {
+        RedemptionDto dto = new RedemptionDto();
+        Timestamp redeemedAt = rs.getTimestamp("redeemed_at");
+        dto.setId(rs.getInt("id"));
+        dto.setVoucherId(rs.getInt("voucher_id"));
+        dto.setVendorId(rs.getInt("vendor_id"));
+        dto.setRedeemedAt(redeemedAt != null ? redeemedAt.toLocalDateTime() : null);
+        dto.setGeoLat(rs.getDouble("geo_lat"));
+        dto.setGeoLon(rs.getDouble("geo_lon"));
+        dto.setDeviceFingerprint(rs.getString("device_fingerprint"));
+        return dto;
+    };
+
+    /**
+     * Streams up to {@code limit} beneficiaries after {@code afterId} into {@code sink}.
+     *
+     * @return the cursor for the next page, or {@code null} if this was the last one
+     */
+    public Integer streamBeneficiaries(int projectId, int afterId, int limit, Consumer<BeneficiaryDto> sink) {
+        return stream(BENEFICIARIES, projectId, afterId, limit, BENEFICIARY, sink);
+    }
+
+    public Integer streamVouchers(int projectId, int afterId, int limit, Consumer<VoucherDto> sink) {
+        return stream(VOUCHERS, projectId, afterId, limit, VOUCHER, sink);
+    }
+
+    public Integer streamRedemptions(int projectId, int afterId, int limit, Consumer<RedemptionDto> sink) {
+        return stream(REDEMPTIONS, projectId, afterId, limit, REDEMPTION, sink);
+    }
+
+    // Reads one row past the page to learn whether another page follows
+    private <T> Integer stream(String sql, int projectId, int afterId, int limit, RowMapper<T> mapper, Consumer<T> sink) {
+        int[] seen = {0, afterId};
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Math.min(fetchSize, limit + 1));
+            ps.setInt(1, projectId);
+            ps.setInt(2, afterId);
+            ps.setInt(3, limit + 1);
+            return ps;
+        }, rs -> {
+            if (seen[0]++ < limit) {
+                seen[1] = rs.getInt("id");
+                sink.accept(mapper.mapRow(rs, seen[0]));
+            }
+        });
+        return seen[0] > limit ? Integer.valueOf(seen[1]) : null;
+    }
+}
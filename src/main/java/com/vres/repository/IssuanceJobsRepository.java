@@ -0,0 +1,16 @@
+package com.vres.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.vres.entity.IssuanceJobs;
+
+@Repository
+public interface IssuanceJobsRepository extends JpaRepository<IssuanceJobs, Integer> {
+    List<IssuanceJobs> findByStatusInOrderByIdAsc(Collection<String> statuses);
+    Optional<IssuanceJobs> findByIdAndProjectId(int id, int projectId);
+}
@@ -0,0 +1,154 @@
+package com.vres.repository;
+
+import java.sql.Date;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.vres.entity.Beneficiaries;
+import com.vres.entity.Vouchers;
+
+/**
+ * Bulk inserts for the high-volume tables.
+ * <p>
+ * The entities use IDENTITY ids, which stops Hibernate from batching inserts,
+ * so saveAll costs one round trip per row. These writers go through JDBC
+ * batches instead; with {@code rewriteBatchedStatements=true} on the MySQL
+ * connection each batch becomes a single multi-row INSERT. Generated ids are
+ * not read back, so callers must not rely on the ids of the passed entities.
+ * <p>
+ * Each call runs in one transaction (or joins the caller's), so a failure
+ * leaves none of the rows behind. The project_stats counters are moved in the
+ * same transaction.
+ * <p>
+ * A beneficiary holds at most one voucher per project (unique key
+ * {@code uk_vouchers_project_beneficiary}). Voucher inserts skip rows that
+ * would break a unique key instead of failing, so jobs racing over the same
+ * beneficiaries cannot double-issue, and report which rows went in. The skip
+ * is a no-op {@code ON DUPLICATE KEY UPDATE}, not {@code INSERT IGNORE}: any
+ * other bad row (foreign key, NOT NULL, truncation) still fails the call.
+ */
+@Repository
+public class JdbcBatchWriter {
+
+    private static final String INSERT_VOUCHER =
+            "INSERT INTO vouchers (project_id, beneficiary_id, status, string_code, qr_code_link, issued_at) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE id = id";
+
+    // Rewritten multi-row batches report no per-row counts, so inserted rows are read back by code
+    private static final String SELECT_INSERTED_VOUCHERS =
+            "SELECT string_code, project_id, beneficiary_id FROM vouchers WHERE string_code IN (%s)";
+
+    private static final String INSERT_BENEFICIARY =
+            "INSERT INTO beneficiaries (name, phone, department_id, project_id, is_approved, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProjectStatsWriter projectStatsWriter;
+
+    @Value("${vres.jdbc.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Inserts the vouchers, skipping any whose beneficiary already holds a voucher
+     * in the project (or whose code is taken).
+     *
+     * @return the codes of the vouchers that were inserted
+     * @throws org.springframework.dao.DataAccessException if any row fails for another
+     *         reason; none of the rows are then inserted
+     */
+    @Transactional
+    public Set<String> insertVouchers(List<Vouchers> vouchers) {
+        jdbcTemplate.batchUpdate(INSERT_VOUCHER, vouchers, batchSize, (ps, voucher) -> {
+            ps.setInt(1, voucher.getProject().getId());
+            ps.setInt(2, voucher.getBeneficiary().getId());
+            ps.setString(3, voucher.getStatus());
+            ps.setString(4, voucher.getStringCode());
+            ps.setString(5, voucher.getQrCodeLink());
+            ps.setDate(6, Date.valueOf(voucher.getIssuedAt() != null ? voucher.getIssuedAt() : LocalDate.now()));
+        });
+        Set<String> inserted = findInserted(vouchers);
+        Map<Integer, long[]> perProject = new HashMap<>();
+        for (Vouchers voucher : vouchers) {
+            if (!inserted.contains(voucher.getStringCode())) {
+                continue;
+            }
+            long[] counts = perProject.computeIfAbsent(voucher.getProject().getId(), id -> new long[2]);
+            counts[0]++;
+            if ("ISSUED".equals(voucher.getStatus())) {
+                counts[1]++;
+            }
+        }
+        perProject.forEach((projectId, counts) -> projectStatsWriter.addVouchers(projectId, counts[0], counts[1]));
+        return inserted;
+    }
+
+    // A code counts as inserted only if its row belongs to the same project and beneficiary
+    private Set<String> findInserted(List<Vouchers> vouchers) {
+        Map<String, Vouchers> byCode = new HashMap<>();
+        for (Vouchers voucher : vouchers) {
+            byCode.put(voucher.getStringCode(), voucher);
+        }
+        List<String> codes = new ArrayList<>(byCode.keySet());
+        Set<String> inserted = new HashSet<>();
+        for (int from = 0; from < codes.size(); from += batchSize) {
+            List<String> chunk = codes.subList(from, Math.min(from + batchSize, codes.size()));
+            jdbcTemplate.query(String.format(SELECT_INSERTED_VOUCHERS, String.join(", ", Collections.nCopies(chunk.size(), "?"))),
+                    rs -> {
+                        Vouchers voucher = byCode.get(rs.getString("string_code"));
+                        if (voucher != null && voucher.getProject().getId() == rs.getInt("project_id")
+                                && voucher.getBeneficiary().getId() == rs.getInt("beneficiary_id")) {
+                            inserted.add(voucher.getStringCode());
+                        }
+                    }, chunk.toArray());
+        }
+        return inserted;
+    }
+
+    @Transactional
+    public void insertBeneficiaries(List<Beneficiaries> beneficiaries) {
+        jdbcTemplate.batchUpdate(INSERT_BENEFICIARY, beneficiaries, batchSize, (ps, beneficiary) -> {
+            ps.setString(1, beneficiary.getName());
+            ps.setString(2, beneficiary.getPhone());
+            if (beneficiary.getDepartment() != null) {
+                ps.setInt(3, beneficiary.getDepartment().getId());
+            } else {
+                ps.setNull(3, Types.INTEGER);
+            }
+            if (beneficiary.getProject() != null) {
+                ps.setInt(4, beneficiary.getProject().getId());
+            } else {
+                ps.setNull(4, Types.INTEGER);
+            }
+            ps.setBoolean(5, beneficiary.isIs_approved());
+            // Matches what @CreationTimestamp would have set
+            ps.setDate(6, Date.valueOf(beneficiary.getCreated_at() != null ? beneficiary.getCreated_at() : LocalDate.now()));
+        });
+        Map<Integer, long[]> perProject = new HashMap<>();
+        for (Beneficiaries beneficiary : beneficiaries) {
+            if (beneficiary.getProject() == null) {
+                continue;
+            }
+            long[] counts = perProject.computeIfAbsent(beneficiary.getProject().getId(), id -> new long[2]);
+            counts[0]++;
+            if (beneficiary.isIs_approved()) {
+                counts[1]++;
+            }
+        }
+        perProject.forEach((projectId, counts) -> projectStatsWriter.addBeneficiaries(projectId, counts[0], counts[1]));
+    }
+}
@@ -0,0 +1,111 @@
+package com.vres.repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.vres.config.StreamingDataSourceConfiguration;
+
+/**
+ * Whole-project reads of vouchers and redemptions for the CSV/XLSX exports.
+ * <p>
+ * Rows come off a server-side cursor with a fixed fetch size (the streaming
+ * pool of {@link StreamingDataSourceConfiguration} enables {@code useCursorFetch})
+ * and are handed to the sink one at a time as {@code Object[]} in the column
+ * order documented on each method, so an export of any size holds one fetch
+ * batch in memory. Beneficiary and vendor details are joined in, rather than
+ * loaded per voucher.
+ */
+@Repository
+public class ProjectExportReader {
+
+    private static final String VOUCHERS =
+            "SELECT v.string_code, v.status, v.issued_at, b.id AS beneficiary_id, b.name, b.phone, b.is_approved "
+            + "FROM vouchers v LEFT JOIN beneficiaries b ON b.id = v.beneficiary_id "
+            + "WHERE v.project_id = ? ORDER BY v.id";
+
+    private static final String REDEMPTIONS =
+            "SELECT r.id, v.string_code, r.redeemed_at, r.vendor_id, u.name AS vendor_name, b.name AS beneficiary_name, "
+            + "b.phone AS beneficiary_phone, r.geo_lat, r.geo_lon, r.device_fingerprint "
+            + "FROM redemptions r JOIN vouchers v ON v.id = r.voucher_id "
+            + "LEFT JOIN beneficiaries b ON b.id = v.beneficiary_id LEFT JOIN users u ON u.id = r.vendor_id "
+            + "WHERE v.project_id = ? ORDER BY r.id";
+
+    @Autowired
+    @Qualifier(StreamingDataSourceConfiguration.STREAMING)
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${vres.export.fetch-size:1000}")
+    private int fetchSize;
+
+    private static final RowMapper<Object[]> VOUCHER = (rs, rowNum) -> new Object[] {
+            rs.getString("string_code"),
+            rs.getString("status"),
+            toLocalDate(rs.getDate("issued_at")),
+            rs.getObject("beneficiary_id", Integer.class),
+            rs.getString("name"),
+            rs.getString("phone"),
+            rs.getObject("is_approved", Boolean.class)
+    };
+
+    private static final RowMapper<Object[]> REDEMPTION = (rs, rowNum) -> new Object[] {
+            rs.getInt("id"),
+            rs.getString("string_code"),
+            toLocalDate(rs.getDate("redeemed_at")),
+            rs.getInt("vendor_id"),
+            rs.getString("vendor_name"),
+            rs.getString("beneficiary_name"),
+            rs.getString("beneficiary_phone"),
+            rs.getObject("geo_lat", Double.class),
+            rs.getObject("geo_lon", Double.class),
+            rs.getString("device_fingerprint")
+    };
+
+    /**
+     * Streams every voucher of the project, in id order, as
+     * {@code [code, status, issuedOn, beneficiaryId, beneficiaryName, beneficiaryPhone, beneficiaryApproved]}.
+     *
+     * @return the number of rows streamed
+     */
+    public long streamVouchers(int projectId, Consumer<Object[]> sink) {
+        return stream(VOUCHERS, projectId, VOUCHER, sink);
+    }
+
+    /**
+     * Streams every redemption of the project's vouchers, in id order, as
+     * {@code [redemptionId, voucherCode, redeemedOn, vendorId, vendorName, beneficiaryName,
+     * beneficiaryPhone, geoLat, geoLon, deviceFingerprint]}.
+     *
+     * @return the number of rows streamed
+     */
+    public long streamRedemptions(int projectId, Consumer<Object[]> sink) {
+        return stream(REDEMPTIONS, projectId, REDEMPTION, sink);
+    }
+
+    private long stream(String sql, int projectId, RowMapper<Object[]> mapper, Consumer<Object[]> sink) {
+        long[] rows = {0};
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setInt(1, projectId);
+            return ps;
+        }, rs -> {
+            sink.accept(mapper.mapRow(rs, (int) rows[0]));
+            rows[0]++;
+        });
+        return rows[0];
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+}
@@ -0,0 +1,166 @@
+package com.vres.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.vres.entity.ProjectStats;
+
+/**
+ * The {@code project_stats} counters: one row per project, adjusted by deltas.
+ * <p>
+ * The delta methods must run inside the transaction that changes the counted
+ * rows (they are {@code MANDATORY}), so a counter moves if and only if the
+ * change commits. Each is a single UPDATE on the project's row; a project
+ * without a row yet is skipped and picked up by {@link #rebuild}.
+ * <p>
+ * {@link #rebuild} recomputes a row from the base tables in its own
+ * transaction. It locks the row before reading, so writers that commit earlier
+ * are counted by the rebuild and writers that commit later apply their delta
+ * on top of it.
+ */
+@Repository
+public class ProjectStatsWriter {
+
+    private static final String SELECT =
+            "SELECT project_id, beneficiaries_total, beneficiaries_approved, vouchers_total, vouchers_issued, "
+            + "vouchers_redeemed, redemptions_total, last_redeemed_at, reconciled_at FROM project_stats WHERE project_id = ?";
+
+    private static final String ADD_BENEFICIARIES =
+            "UPDATE project_stats SET beneficiaries_total = beneficiaries_total + ?, "
+            + "beneficiaries_approved = beneficiaries_approved + ? WHERE project_id = ?";
+
+    private static final String ADD_APPROVALS =
+            "UPDATE project_stats SET beneficiaries_approved = beneficiaries_approved + ? WHERE project_id = ?";
+
+    private static final String ADD_VOUCHERS =
+            "UPDATE project_stats SET vouchers_total = vouchers_total + ?, vouchers_issued = vouchers_issued + ? "
+            + "WHERE project_id = ?";
+
+    // Grouped by project, so one call covers a sync batch spanning projects
+    private static final String ADD_REDEMPTIONS =
+            "UPDATE project_stats s JOIN (SELECT v.project_id, COUNT(*) AS n, MAX(r.redeemed_at) AS last_at "
+            + "FROM vouchers v JOIN redemptions r ON r.voucher_id = v.id WHERE v.id IN (%s) GROUP BY v.project_id) d "
+            + "ON d.project_id = s.project_id "
+            + "SET s.vouchers_issued = s.vouchers_issued - d.n, s.vouchers_redeemed = s.vouchers_redeemed + d.n, "
+            + "s.redemptions_total = s.redemptions_total + d.n, "
+            + "s.last_redeemed_at = GREATEST(COALESCE(s.last_redeemed_at, d.last_at), d.last_at)";
+
+    private static final String LOCK_ROW =
+            "INSERT INTO project_stats (project_id, beneficiaries_total, beneficiaries_approved, vouchers_total, "
+            + "vouchers_issued, vouchers_redeemed, redemptions_total) VALUES (?, 0, 0, 0, 0, 0, 0) "
+            + "ON DUPLICATE KEY UPDATE project_id = project_id";
+
+    // Plain (non-locking) reads, so a rebuild never blocks redemptions on the project's vouchers
+    private static final String COUNT =
+            "SELECT (SELECT COUNT(*) FROM beneficiaries b WHERE b.project_id = ?) AS beneficiaries_total, "
+            + "(SELECT COUNT(*) FROM beneficiaries b WHERE b.project_id = ? AND b.is_approved) AS beneficiaries_approved, "
+            + "(SELECT COUNT(*) FROM vouchers v WHERE v.project_id = ?) AS vouchers_total, "
+            + "(SELECT COUNT(*) FROM vouchers v WHERE v.project_id = ? AND v.status = 'ISSUED') AS vouchers_issued, "
+            + "(SELECT COUNT(*) FROM vouchers v WHERE v.project_id = ? AND v.status = 'REDEEMED') AS vouchers_redeemed, "
+            + "(SELECT COUNT(*) FROM redemptions r JOIN vouchers v ON v.id = r.voucher_id WHERE v.project_id = ?) AS redemptions_total, "
+            + "(SELECT MAX(r.redeemed_at) FROM redemptions r JOIN vouchers v ON v.id = r.voucher_id WHERE v.project_id = ?) AS last_redeemed_at";
+
+    private static final String STORE =
+            "UPDATE project_stats SET beneficiaries_total = ?, beneficiaries_approved = ?, vouchers_total = ?, "
+            + "vouchers_issued = ?, vouchers_redeemed = ?, redemptions_total = ?, last_redeemed_at = ?, reconciled_at = ? "
+            + "WHERE project_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public Optional<ProjectStats> find(int projectId) {
+        List<ProjectStats> rows = jdbcTemplate.query(SELECT, (rs, rowNum) -> {
+            ProjectStats stats = new ProjectStats();
+            stats.setProjectId(rs.getInt("project_id"));
+            stats.setBeneficiariesTotal(rs.getLong("beneficiaries_total"));
+            stats.setBeneficiariesApproved(rs.getLong("beneficiaries_approved"));
+            stats.setVouchersTotal(rs.getLong("vouchers_total"));
+            stats.setVouchersIssued(rs.getLong("vouchers_issued"));
+            stats.setVouchersRedeemed(rs.getLong("vouchers_redeemed"));
+            stats.setRedemptionsTotal(rs.getLong("redemptions_total"));
+            stats.setLastRedeemedAt(rs.getDate("last_redeemed_at"));
+            Timestamp reconciledAt = rs.getTimestamp("reconciled_at");
+            stats.setReconciledAt(reconciledAt != null ? reconciledAt.toLocalDateTime() : null);
+            return stats;
+        }, projectId);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    // A new project has nothing to count, so its row starts at zero
+    @Transactional
+    public void createEmpty(int projectId) {
+        jdbcTemplate.update(LOCK_ROW, projectId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addBeneficiaries(int projectId, long total, long approved) {
+        jdbcTemplate.update(ADD_BENEFICIARIES, total, approved, projectId);
+    }
+
+    // delta is negative when beneficiaries are moved back to pending
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addApprovals(int projectId, long delta) {
+        if (delta != 0) {
+            jdbcTemplate.update(ADD_APPROVALS, delta, projectId);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addVouchers(int projectId, long total, long issued) {
+        jdbcTemplate.update(ADD_VOUCHERS, total, issued, projectId);
+    }
+
+    /**
+     * Moves the given vouchers from issued to redeemed in their projects' counters.
+     * Call after their redemption rows are inserted, in the same transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addRedemptions(Collection<Integer> voucherIds) {
+        if (voucherIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(String.format(ADD_REDEMPTIONS, String.join(", ", Collections.nCopies(voucherIds.size(), "?"))),
+                voucherIds.toArray());
+    }
+
+    /**
+     * Recomputes the project's row from the base tables, creating it if missing.
+     * Must not be called from inside another transaction.
+     *
+     * @return the row as it was before the rebuild (all zero, never reconciled, if
+     *         it was missing) and after
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public ProjectStats[] rebuild(int projectId) {
+        // Lock first: the reads below then use a snapshot taken after every earlier delta committed
+        jdbcTemplate.update(LOCK_ROW, projectId);
+        ProjectStats before = find(projectId).orElseThrow();
+        ProjectStats after = jdbcTemplate.queryForObject(COUNT, (rs, rowNum) -> {
+            ProjectStats stats = new ProjectStats();
+            stats.setProjectId(projectId);
+            stats.setBeneficiariesTotal(rs.getLong("beneficiaries_total"));
+            stats.setBeneficiariesApproved(rs.getLong("beneficiaries_approved"));
+            stats.setVouchersTotal(rs.getLong("vouchers_total"));
+            stats.setVouchersIssued(rs.getLong("vouchers_issued"));
+            stats.setVouchersRedeemed(rs.getLong("vouchers_redeemed"));
+            stats.setRedemptionsTotal(rs.getLong("redemptions_total"));
+            stats.setLastRedeemedAt(rs.getDate("last_redeemed_at"));
+            return stats;
+        }, projectId, projectId, projectId, projectId, projectId, projectId, projectId);
+        after.setReconciledAt(LocalDateTime.now());
+        jdbcTemplate.update(STORE, after.getBeneficiariesTotal(), after.getBeneficiariesApproved(), after.getVouchersTotal(),
+                after.getVouchersIssued(), after.getVouchersRedeemed(), after.getRedemptionsTotal(), after.getLastRedeemedAt(),
+                Timestamp.valueOf(after.getReconciledAt()), projectId);
+        return new ProjectStats[] {before, after};
+    }
+}
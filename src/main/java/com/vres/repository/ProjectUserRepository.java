@@ -3,6 +3,8 @@ package com.vres.repository;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.vres.entity.ProjectUser;
@@ -13,5 +15,14 @@ public interface ProjectUserRepository extends JpaRepository<ProjectUser, Intege
     List<ProjectUser> findByProjectId(int projectId);
     List<ProjectUser> findByProjectIdAndUserIdIn(int projectId, List<Integer> userIds);
     boolean existsByProjectIdAndUserIdAndVendorStatus(int projectId, int userId, Integer vendorStatus);
+
+    // Loads VendorAuthorizationIndex entries
+    @Query("SELECT pu.userId FROM ProjectUser pu WHERE pu.project.id = :projectId AND pu.vendorStatus = 1")
+    List<Integer> findActiveVendorIds(@Param("projectId") int projectId);
+
+    // Dashboard roster without loading entities: rows of [userId, role name, vendorStatus, user name] in assignment order
+    @Query("SELECT pu.userId, r.name, pu.vendorStatus, u.name FROM ProjectUser pu LEFT JOIN pu.role r "
+            + "LEFT JOIN Users u ON u.id = pu.userId WHERE pu.project.id = :projectId ORDER BY pu.id")
+    List<Object[]> findRosterRows(@Param("projectId") int projectId);
 }
 
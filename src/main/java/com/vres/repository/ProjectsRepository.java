@@ -22,5 +22,9 @@ public interface ProjectsRepository extends JpaRepository<Projects, Integer> {
      */
     @Query("SELECT p FROM Projects p WHERE p.end_date = :endDate")
     List<Projects> findByEndDate(@Param("endDate") Date endDate);
+
+    // Ids only, for jobs that walk every project (project_stats reconcile)
+    @Query("SELECT p.id FROM Projects p ORDER BY p.id")
+    List<Integer> findAllIds();
     
  }
@@ -0,0 +1,165 @@
+package com.vres.repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Commits a redemption as a compare-and-set on the voucher status.
+ * <p>
+ * The status flip is a single conditional UPDATE (ISSUED -> REDEEMED); the
+ * row lock it takes is held only until the redemption row is inserted and
+ * the transaction commits. Of any number of concurrent confirmations for a
+ * voucher exactly one sees an update count of 1; the rest get {@code false}
+ * without waiting on a SELECT ... FOR UPDATE.
+ * <p>
+ * Bulk sync ({@link #lockVouchers} then {@link #redeemAll}) works set-wise
+ * instead: one locking read for a whole chunk of vouchers, one conditional
+ * UPDATE and one batched INSERT, all inside the caller's transaction.
+ * <p>
+ * Both paths move the project_stats counters in the same transaction.
+ */
+@Repository
+public class RedemptionWriter {
+
+    private static final String MARK_REDEEMED =
+            "UPDATE vouchers SET status = 'REDEEMED' WHERE id = ? AND status = 'ISSUED'";
+
+    private static final String INSERT_REDEMPTION =
+            "INSERT INTO redemptions (voucher_id, vendor_id, redeemed_at, geo_lat, geo_lon, device_fingerprint, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, CURRENT_DATE)";
+
+    private static final String LOCK_VOUCHERS =
+            "SELECT v.id, v.string_code, v.status, v.project_id, p.voucher_valid_from, p.voucher_valid_till, "
+            + "(SELECT MIN(r.vendor_id) FROM redemptions r WHERE r.voucher_id = v.id) AS redeemed_by "
+            + "FROM vouchers v JOIN projects p ON p.id = v.project_id WHERE v.string_code IN (%s) FOR UPDATE OF v";
+
+    private static final String MARK_ALL_REDEEMED =
+            "UPDATE vouchers SET status = 'REDEEMED' WHERE id IN (%s) AND status = 'ISSUED'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProjectStatsWriter projectStatsWriter;
+
+    // A voucher as read (and row-locked) by lockVouchers
+    public static final class LockedVoucher {
+        private final int id;
+        private final String status;
+        private final int projectId;
+        private final LocalDate validFrom;
+        private final LocalDate validTill;
+        private final Integer redeemedBy;
+
+        LockedVoucher(int id, String status, int projectId, LocalDate validFrom, LocalDate validTill, Integer redeemedBy) {
+            this.id = id;
+            this.status = status;
+            this.projectId = projectId;
+            this.validFrom = validFrom;
+            this.validTill = validTill;
+            this.redeemedBy = redeemedBy;
+        }
+
+        public int getId() { return id; }
+        public String getStatus() { return status; }
+        public int getProjectId() { return projectId; }
+        public LocalDate getValidFrom() { return validFrom; }
+        public LocalDate getValidTill() { return validTill; }
+        // Vendor of an existing redemption, or null if the voucher has none
+        public Integer getRedeemedBy() { return redeemedBy; }
+    }
+
+    // One redemption to record through redeemAll
+    public static final class RedemptionRow {
+        private final int voucherId;
+        private final Date redeemedAt;
+        private final double geoLat;
+        private final double geoLon;
+        private final String deviceFingerprint;
+
+        public RedemptionRow(int voucherId, Date redeemedAt, double geoLat, double geoLon, String deviceFingerprint) {
+            this.voucherId = voucherId;
+            this.redeemedAt = redeemedAt;
+            this.geoLat = geoLat;
+            this.geoLon = geoLon;
+            this.deviceFingerprint = deviceFingerprint;
+        }
+    }
+
+    /**
+     * Marks the voucher redeemed and records the redemption, in one transaction.
+     *
+     * @return {@code true} if this call redeemed the voucher, {@code false} if it
+     *         was no longer ISSUED (already redeemed, possibly by a concurrent call)
+     */
+    @Transactional
+    public boolean redeem(int voucherId, int vendorId, double geoLat, double geoLon, String deviceFingerprint) {
+        if (jdbcTemplate.update(MARK_REDEEMED, voucherId) != 1) {
+            return false;
+        }
+        jdbcTemplate.update(INSERT_REDEMPTION, voucherId, vendorId, new Date(System.currentTimeMillis()),
+                geoLat, geoLon, deviceFingerprint);
+        projectStatsWriter.addRedemptions(List.of(voucherId));
+        return true;
+    }
+
+    /**
+     * Reads the vouchers with the given codes and locks their rows until the
+     * caller's transaction ends. Codes that do not exist are absent from the map.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<String, LockedVoucher> lockVouchers(Collection<String> codes) {
+        if (codes.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, LockedVoucher> vouchers = new HashMap<>(codes.size() * 2);
+        jdbcTemplate.query(String.format(LOCK_VOUCHERS, placeholders(codes.size())), rs -> {
+            vouchers.put(rs.getString("string_code"), new LockedVoucher(
+                    rs.getInt("id"), rs.getString("status"), rs.getInt("project_id"),
+                    rs.getDate("voucher_valid_from").toLocalDate(), rs.getDate("voucher_valid_till").toLocalDate(),
+                    rs.getObject("redeemed_by", Integer.class)));
+        }, codes.toArray());
+        return vouchers;
+    }
+
+    /**
+     * Marks the vouchers redeemed and inserts their redemptions. The vouchers must
+     * have been locked by {@link #lockVouchers} in the same transaction and seen as ISSUED.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void redeemAll(int vendorId, List<RedemptionRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Object[] ids = rows.stream().map(row -> row.voucherId).toArray();
+        int updated = jdbcTemplate.update(String.format(MARK_ALL_REDEEMED, placeholders(ids.length)), ids);
+        if (updated != rows.size()) {
+            // Only possible if the rows were not locked first; roll the chunk back
+            throw new IllegalStateException("Expected to redeem " + rows.size() + " vouchers but updated " + updated);
+        }
+        jdbcTemplate.batchUpdate(INSERT_REDEMPTION, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.voucherId);
+            ps.setInt(2, vendorId);
+            ps.setDate(3, row.redeemedAt);
+            ps.setDouble(4, row.geoLat);
+            ps.setDouble(5, row.geoLon);
+            ps.setString(6, row.deviceFingerprint);
+        });
+        projectStatsWriter.addRedemptions(rows.stream().map(row -> row.voucherId).toList());
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
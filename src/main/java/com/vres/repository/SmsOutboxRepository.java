@@ -0,0 +1,40 @@
+package com.vres.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.vres.entity.SmsOutbox;
+
+@Repository
+public interface SmsOutboxRepository extends JpaRepository<SmsOutbox, Long> {
+
+    // Due rows: PENDING ones whose retry time has come and SENDING ones whose claim lapsed (dispatcher died mid-send).
+    // SKIP LOCKED lets several instances drain the outbox without handing out the same row twice.
+    @Query(value = "SELECT id FROM sms_outbox WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now "
+            + "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockDueIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE SmsOutbox o SET o.status = 'SENDING', o.attempts = o.attempts + 1, o.nextAttemptAt = :leaseUntil WHERE o.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE SmsOutbox o SET o.status = 'SENT', o.message = NULL, o.providerMessageId = :providerMessageId, "
+            + "o.lastError = NULL, o.sentAt = :sentAt WHERE o.id = :id")
+    int markSent(@Param("id") long id, @Param("providerMessageId") String providerMessageId, @Param("sentAt") LocalDateTime sentAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE SmsOutbox o SET o.status = :status, o.lastError = :error, o.nextAttemptAt = :nextAttemptAt WHERE o.id = :id")
+    int markAttemptFailed(@Param("id") long id, @Param("status") String status, @Param("error") String error,
+                          @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+}
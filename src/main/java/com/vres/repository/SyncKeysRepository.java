@@ -0,0 +1,13 @@
+package com.vres.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.vres.entity.SyncKeys;
+
+@Repository
+public interface SyncKeysRepository extends JpaRepository<SyncKeys, Integer> {
+    Optional<SyncKeys> findByIdAndVendorId(int id, int vendorId);
+}
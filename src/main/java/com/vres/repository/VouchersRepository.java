@@ -1,11 +1,15 @@
 package com.vres.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.vres.dto.RedemptionView;
 import com.vres.entity.Vouchers;
 
 @Repository
@@ -15,4 +19,23 @@ public interface VouchersRepository extends JpaRepository<Vouchers, Integer> {
     Optional<Vouchers> findByStringCode(String stringCode);
     List<Vouchers> findByProjectId(int projectId);
     long countByProjectId(int projectId);
+
+    // Set-based uniqueness check used by code allocation: returns the given codes that already exist
+    @Query("SELECT v.stringCode FROM Vouchers v WHERE v.stringCode IN :codes")
+    List<String> findExistingStringCodes(@Param("codes") Collection<String> codes);
+
+    // Beneficiaries (out of the given ones) that already hold a voucher in the project; the issuance job checkpoint
+    @Query("SELECT v.beneficiary.id FROM Vouchers v WHERE v.project.id = :projectId AND v.beneficiary.id IN :beneficiaryIds")
+    List<Integer> findIssuedBeneficiaryIds(@Param("projectId") int projectId, @Param("beneficiaryIds") Collection<Integer> beneficiaryIds);
+
+    // Voucher counts per status, computed in the database: rows of [status, count]
+    @Query("SELECT v.status, COUNT(v) FROM Vouchers v WHERE v.project.id = :projectId GROUP BY v.status")
+    List<Object[]> countByStatusForProject(@Param("projectId") int projectId);
+
+    // Redemption read model: voucher, validity window and beneficiary phone in one round trip.
+    // Vendor-independent so VoucherCodeCache can share it; vendors are checked against VendorAuthorizationIndex.
+    @Query("SELECT new com.vres.dto.RedemptionView(v.id, v.stringCode, v.status, "
+            + "p.id, p.voucher_valid_from, p.voucher_valid_till, b.phone) "
+            + "FROM Vouchers v JOIN v.project p JOIN v.beneficiary b WHERE v.stringCode = :code")
+    Optional<RedemptionView> findRedemptionView(@Param("code") String code);
 }
@@ -7,14 +7,17 @@ import java.util.stream.Collectors; // Import Collectors
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // Prefer org.springframework version
 
 import com.vres.dto.UserResponse; // Import UserResponse
 import com.vres.entity.Beneficiaries;
+import com.vres.entity.ProjectStats;
 import com.vres.entity.Projects;
 import com.vres.entity.Users; // Import Users
 import com.vres.repository.BeneficiariesRepository;
+import com.vres.repository.ProjectStatsWriter;
 import com.vres.repository.ProjectsRepository;
 import com.vres.repository.UsersRepository; // Import UsersRepository
 
@@ -40,6 +43,12 @@ public class BeneficiaryService {
     @Autowired
     private EmailService emailService; // Injected EmailService
 
+    @Autowired
+    private ProjectStatsWriter projectStatsWriter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
 
     /**
      * Updates beneficiary approval status after validating project registration end date.
@@ -92,23 +101,31 @@ public class BeneficiaryService {
 
 
         boolean isApproved = "active".equalsIgnoreCase(status);
+        long changed = 0;
         for (Beneficiaries beneficiary : beneficiariesToUpdate) {
             // Check to ensure all IDs belong to the same project (important for transaction consistency)
             if (beneficiary.getProject() == null || beneficiary.getProject().getId() != projectId) {
                 logger.error("Cannot update beneficiaries from different projects in one request. Beneficiary ID {} is not in project ID {}.", beneficiary.getId(), projectId);
                 throw new IllegalStateException("Cannot update beneficiaries from different projects in one request.");
             }
+            if (beneficiary.isIs_approved() != isApproved) {
+                changed++;
+            }
             beneficiary.setIs_approved(isApproved);
         }
 
         beneficiariesRepository.saveAll(beneficiariesToUpdate);
+        projectStatsWriter.addApprovals(projectId, isApproved ? changed : -changed);
+        eventPublisher.publishEvent(new ProjectDataChangedEvent(projectId));
         logger.info("Updated {} beneficiaries for project ID {} to status '{}'.", beneficiariesToUpdate.size(), projectId, status);
 
 
         // --- ISSUER NOTIFICATION LOGIC ---
         if (isApproved) {
-            // Count remaining pending beneficiaries for the project
-            long pendingCount = beneficiariesRepository.countByProjectIdAndIs_approved(projectId, false);
+            // Remaining pending beneficiaries, from the project_stats row this transaction just updated
+            ProjectStats stats = projectStatsWriter.find(projectId).orElse(null);
+            long pendingCount = stats != null ? stats.getBeneficiariesTotal() - stats.getBeneficiariesApproved()
+                    : beneficiariesRepository.countByProjectIdAndIs_approved(projectId, false);
             logger.debug("Project {} now has {} pending beneficiaries.", projectId, pendingCount);
 
             if (pendingCount == 0) {
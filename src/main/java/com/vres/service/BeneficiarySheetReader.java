@@ -0,0 +1,249 @@
+package com.vres.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * Reads beneficiary uploads (name in the first column, phone in the second,
+ * header row skipped) one row at a time, without holding the sheet in memory.
+ * <ul>
+ * <li>.xlsx is parsed with the POI event model: the upload is spooled to a
+ * temp file and the first sheet is streamed through SAX.</li>
+ * <li>.csv is read line by line (RFC 4180 quoting, no embedded newlines).</li>
+ * <li>.xls has no streaming reader here and goes through the usermodel API;
+ * the format is capped at 65,536 rows, so its footprint stays bounded.</li>
+ * </ul>
+ */
+final class BeneficiarySheetReader {
+
+    @FunctionalInterface
+    interface RowHandler {
+        /**
+         * Called for every data row; {@code rowNumber} is 1-based as shown in the
+         * spreadsheet. Values are trimmed and may be {@code null} for empty cells.
+         */
+        void row(int rowNumber, String name, String phone);
+    }
+
+    private BeneficiarySheetReader() {}
+
+    /**
+     * Streams the rows of {@code file} to {@code handler} and returns the number
+     * of data rows read.
+     */
+    static int read(MultipartFile file, RowHandler handler) throws IOException {
+        String filename = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase(Locale.ROOT) : "";
+        if (filename.endsWith(".csv")) {
+            try (InputStream in = file.getInputStream()) {
+                return readCsv(in, handler);
+            }
+        }
+        if (filename.endsWith(".xls")) {
+            try (InputStream in = file.getInputStream()) {
+                return readWorkbook(in, handler);
+            }
+        }
+        // OPCPackage reads entries lazily from a file, but would buffer a stream whole
+        Path temp = Files.createTempFile("vres-import-", ".xlsx");
+        try {
+            file.transferTo(temp);
+            return readXlsx(temp, handler);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static int readXlsx(Path path, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(path.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return 0;
+            }
+            RowCollector collector = new RowCollector(handler);
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                // formulasNotResults=false: formula cells report their cached result
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, collector, new DataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+            return collector.rows;
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Invalid .xlsx file: " + e.getMessage(), e);
+        }
+    }
+
+    static int readCsv(InputStream in, RowHandler handler) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        if (line == null) {
+            return 0; // empty file: not even a header
+        }
+        int rows = 0;
+        int lineNumber = 1;
+        List<String> fields = new ArrayList<>(4);
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            splitCsvLine(line, fields);
+            handler.row(lineNumber, field(fields, 0), field(fields, 1));
+            rows++;
+        }
+        return rows;
+    }
+
+    static int readWorkbook(InputStream in, RowHandler handler) throws IOException {
+        try (Workbook workbook = WorkbookFactory.create(in)) {
+            DataFormatter formatter = new DataFormatter();
+            FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+            int rows = 0;
+            for (Row row : workbook.getSheetAt(0)) {
+                if (row.getRowNum() == 0) continue; // Skip header row
+                handler.row(row.getRowNum() + 1,
+                        cellValue(row.getCell(0), formatter, evaluator),
+                        cellValue(row.getCell(1), formatter, evaluator));
+                rows++;
+            }
+            return rows;
+        }
+    }
+
+    private static String cellValue(Cell cell, DataFormatter formatter, FormulaEvaluator evaluator) {
+        if (cell == null) {
+            return null;
+        }
+        if (cell.getCellType() == CellType.FORMULA) {
+            try {
+                return trimToNull(formatter.formatCellValue(cell, evaluator));
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return trimToNull(formatter.formatCellValue(cell));
+    }
+
+    // Splits one CSV line into fields, honouring double quotes and "" escapes
+    private static void splitCsvLine(String line, List<String> fields) {
+        fields.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\uFEFF') { // byte order mark
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? trimToNull(fields.get(index)) : null;
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // Collects the first two columns of each row from the SAX callbacks
+    private static final class RowCollector implements SheetContentsHandler {
+        private final RowHandler handler;
+        private String name;
+        private String phone;
+        int rows;
+
+        RowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            name = null;
+            phone = null;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (rowNum == 0) return; // Skip header row
+            handler.row(rowNum + 1, name, phone);
+            rows++;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = columnIndex(cellReference);
+            if (column == 0) {
+                name = trimToNull(formattedValue);
+            } else if (column == 1) {
+                phone = trimToNull(formattedValue);
+            }
+        }
+
+        // "B12" -> 1, without allocating a CellReference per cell
+        private static int columnIndex(String cellReference) {
+            if (cellReference == null) {
+                return -1;
+            }
+            int column = 0;
+            for (int i = 0; i < cellReference.length(); i++) {
+                char c = cellReference.charAt(i);
+                if (c < 'A' || c > 'Z') break;
+                column = column * 26 + (c - 'A' + 1);
+            }
+            return column - 1;
+        }
+    }
+}
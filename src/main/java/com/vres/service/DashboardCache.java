@@ -0,0 +1,124 @@
+package com.vres.service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Per-project cache of the dashboard summary, served stale-while-revalidate.
+ * <p>
+ * A {@link ProjectDataChangedEvent} marks the project's cached dashboard stale
+ * after its transaction commits. A stale dashboard is still returned at once,
+ * and a single background recompute is started (Caffeine coalesces concurrent
+ * refreshes of a key, so a room full of auto-refreshing pollers costs one
+ * computation). The mark replaces the cached entry, so Caffeine discards a
+ * recompute that was already running and may have read the old data; the next
+ * read starts a fresh one. Projects that are not cached keep no state, so
+ * memory is bounded by {@code max-projects}. Only the first request for a
+ * project waits, and concurrent first requests share that one load too.
+ * <p>
+ * Entries are also refreshed after {@code vres.dashboard.cache.refresh-seconds}
+ * as a backstop for changes that publish no event, and dropped after
+ * {@code idle-minutes} without reads. Statistics are published as
+ * {@code cache.*{cache=vres.dashboard}}.
+ */
+@Component
+public class DashboardCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardCache.class);
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${vres.dashboard.cache.max-projects:1000}")
+    private long maxProjects;
+
+    @Value("${vres.dashboard.cache.refresh-seconds:300}")
+    private long refreshSeconds;
+
+    @Value("${vres.dashboard.cache.idle-minutes:30}")
+    private long idleMinutes;
+
+    @Value("${vres.dashboard.cache.refresh-threads:2}")
+    private int refreshThreads;
+
+    // A dashboard, and whether the project has changed since it was computed
+    private static final class Snapshot {
+        final Map<String, Object> dashboard;
+        final boolean stale;
+
+        Snapshot(Map<String, Object> dashboard, boolean stale) {
+            this.dashboard = dashboard;
+            this.stale = stale;
+        }
+    }
+
+    private ExecutorService refresher;
+    private LoadingCache<Integer, Snapshot> cache;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger counter = new AtomicInteger();
+        refresher = Executors.newFixedThreadPool(refreshThreads, r -> {
+            Thread t = new Thread(r, "vres-dashboard-refresh-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxProjects)
+                .refreshAfterWrite(refreshSeconds, TimeUnit.SECONDS)
+                .expireAfterAccess(idleMinutes, TimeUnit.MINUTES)
+                .executor(refresher)
+                .recordStats()
+                .build(this::compute);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "vres.dashboard");
+        logger.info("Dashboard cache initialized (max {} projects, refresh {}s, idle {}m)", maxProjects, refreshSeconds, idleMinutes);
+    }
+
+    @PreDestroy
+    void stop() {
+        refresher.shutdownNow();
+    }
+
+    public Map<String, Object> get(int projectId) {
+        Snapshot snapshot = cache.get(projectId);
+        if (snapshot.stale) {
+            // Serve the stale copy; a refresh already in flight is reused rather than started again
+            cache.refresh(projectId);
+        }
+        return snapshot.dashboard;
+    }
+
+    // After commit, so the recompute it triggers reads the committed data
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProjectDataChanged(ProjectDataChangedEvent event) {
+        // Always a new instance, even if already stale: that is what makes Caffeine drop an in-flight refresh.
+        // A first load still running holds the key, so this waits for it and then marks its result.
+        cache.asMap().computeIfPresent(event.getProjectId(), (id, snapshot) -> new Snapshot(snapshot.dashboard, true));
+    }
+
+    private Snapshot compute(int projectId) {
+        return new Snapshot(Collections.unmodifiableMap(dashboardService.getDashboardByProjectId(projectId)), false);
+    }
+}
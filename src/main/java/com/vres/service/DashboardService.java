@@ -1,28 +1,34 @@
 package com.vres.service;
 
-import java.util.Comparator;
-import java.util.Date;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.vres.entity.Beneficiaries;
-import com.vres.entity.ProjectUser;
-import com.vres.entity.Redemptions;
-import com.vres.entity.Users;
-import com.vres.entity.Vouchers;
-import com.vres.repository.BeneficiariesRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.vres.dto.BeneficiaryDto;
+import com.vres.dto.RedemptionDto;
+import com.vres.dto.VoucherDto;
+import com.vres.entity.ProjectStats;
+import com.vres.repository.DashboardListReader;
 import com.vres.repository.ProjectUserRepository;
-import com.vres.repository.RedemptionsRepository;
-import com.vres.repository.UsersRepository;
-import com.vres.repository.VouchersRepository;
+import com.vres.repository.ProjectsRepository;
+
+import jakarta.persistence.EntityNotFoundException;
 
 @Service
 public class DashboardService {
@@ -33,116 +39,95 @@ public class DashboardService {
     private ProjectUserRepository projectUserRepository;
 
     @Autowired
-    private BeneficiariesRepository beneficiariesRepository;
-
-    @Autowired
-    private VouchersRepository vouchersRepository;
+    private ProjectsRepository projectsRepository;
 
     @Autowired
-    private RedemptionsRepository redemptionsRepository;
+    private ProjectStatsService projectStatsService;
 
     @Autowired
-    private VoucherService voucherService;
+    private DashboardListReader dashboardListReader;
 
     @Autowired
-    private UsersRepository usersRepository;
-
+    private ObjectMapper objectMapper;
+
+    @Value("${vres.dashboard.list.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${vres.dashboard.list.max-page-size:1000}")
+    private int maxPageSize;
+
+    /**
+     * Builds the project dashboard summary. Every count, and the last redemption
+     * date, comes from the project's project_stats row (see ProjectStatsService),
+     * so none of them scans project rows; the user section reads one projection
+     * row per project user. The beneficiary,
+     * voucher and redemption lists are served page by page by the list endpoints
+     * (see {@link #writeBeneficiaryPage} and friends).
+     */
     public Map<String, Object> getDashboardByProjectId(int projectId) {
         logger.info("Fetching dashboard data for project ID: {}", projectId);
 
         Map<String, Object> dashboard = new HashMap<>();
 
         // ===================== Project Users =====================
-        List<ProjectUser> projectUsers = projectUserRepository.findByProjectId(projectId);
-        int totalUsers = projectUsers.size();
+        // Rows of [userId, role name, vendorStatus, user name], in assignment order
+        List<Object[]> roster = projectUserRepository.findRosterRows(projectId);
+        int totalUsers = roster.size();
         logger.debug("Total project users found: {}", totalUsers);
 
-        // Group project users by role name (lowercased)
-        Map<String, List<ProjectUser>> roleGroups = projectUsers.stream()
-                .filter(u -> u.getRole() != null && u.getRole().getName() != null)
-                .collect(Collectors.groupingBy(u -> u.getRole().getName().trim().toLowerCase()));
-
-        List<ProjectUser> makers = roleGroups.getOrDefault("maker", List.of());
-        List<ProjectUser> checkers = roleGroups.getOrDefault("checker", List.of());
-        List<ProjectUser> issuers = roleGroups.getOrDefault("issuer", List.of());
-        List<ProjectUser> vendors = roleGroups.getOrDefault("vendor", List.of());
-
-        long makerCount = makers.size();
-        long checkerCount = checkers.size();
-        long issuerCount = issuers.size();
-        long vendorCount = vendors.stream()
-                .filter(v -> v.getVendorStatus() != null && v.getVendorStatus() == 1)
-                .count();
+        // Count project users by role name (lowercased); the first user of each role names it
+        Map<String, Long> roleCounts = new HashMap<>();
+        Map<String, String> firstNames = new HashMap<>();
+        long vendorCount = 0;
+        String firstActiveVendor = null;
+        for (Object[] row : roster) {
+            if (row[1] == null) {
+                continue;
+            }
+            String role = ((String) row[1]).trim().toLowerCase();
+            String userName = row[3] != null ? (String) row[3] : "N/A";
+            roleCounts.merge(role, 1L, Long::sum);
+            firstNames.putIfAbsent(role, userName);
+            if ("vendor".equals(role) && Integer.valueOf(1).equals(row[2])) {
+                vendorCount++;
+                if (firstActiveVendor == null) {
+                    firstActiveVendor = userName;
+                }
+            }
+        }
+
+        long makerCount = roleCounts.getOrDefault("maker", 0L);
+        long checkerCount = roleCounts.getOrDefault("checker", 0L);
+        long issuerCount = roleCounts.getOrDefault("issuer", 0L);
 
         logger.debug("Makers: {}, Checkers: {}, Issuers: {}, Vendors: {}",
                 makerCount, checkerCount, issuerCount, vendorCount);
 
-        // ===================== Beneficiaries =====================
-        List<Beneficiaries> beneficiaries = beneficiariesRepository.findByProjectId(projectId);
-        int totalBeneficiaries = beneficiaries.size();
-        long approvedBeneficiaries = beneficiaries.stream()
-                .filter(Beneficiaries::isIs_approved)
-                .count();
+        String makerName = firstNames.getOrDefault("maker", "N/A");
+        String checkerName = firstNames.getOrDefault("checker", "N/A");
+        String issuerName = firstNames.getOrDefault("issuer", "N/A");
+        String vendorName = firstActiveVendor != null ? firstActiveVendor : "N/A";
+
+        // ===================== Counters (one project_stats row) =====================
+        ProjectStats stats = projectStatsService.get(projectId);
+
+        long totalBeneficiaries = stats.getBeneficiariesTotal();
+        long approvedBeneficiaries = stats.getBeneficiariesApproved();
         logger.debug("Total beneficiaries: {}, Approved: {}", totalBeneficiaries, approvedBeneficiaries);
 
-        // ===================== Vouchers =====================
-        List<Vouchers> vouchers = vouchersRepository.findByProjectId(projectId);
-        long totalVouchers = vouchers.size();
-        Map<String, Long> voucherStatus = voucherService.getVoucherStatusCountByProject(projectId);
-
-        // ===================== Redemptions =====================
-        long totalRedemptions = redemptionsRepository.countByVoucher_Project_Id(projectId);
-        List<Redemptions> redemptionsList = redemptionsRepository.findByVoucher_Project_Id(projectId);
-
-        // Get the most recent redemption date
-        String lastRedeemedAt = redemptionsList.stream()
-        	    .filter(r -> r.getRedeemed_date() != null)
-        	    .map(Redemptions::getRedeemed_date)
-        	    .max(Comparator.comparing(Date::getTime))
-        	    .map(Date::toString)
-        	    .orElse("N/A");
-
-        // ===================== User Name Mapping =====================
-        Set<Integer> allUserIds = projectUsers.stream()
-                .map(ProjectUser::getUserId)
-                .collect(Collectors.toSet());
-
-        Map<Integer, String> userNameMap = usersRepository.findAllById(allUserIds)
-                .stream()
-                .collect(Collectors.toMap(Users::getId, Users::getName));
-
-        String makerName = makers.stream()
-                .map(u -> userNameMap.getOrDefault(u.getUserId(), "N/A"))
-                .findFirst().orElse("N/A");
-
-        String checkerName = checkers.stream()
-                .map(u -> userNameMap.getOrDefault(u.getUserId(), "N/A"))
-                .findFirst().orElse("N/A");
-
-        String issuerName = issuers.stream()
-                .map(u -> userNameMap.getOrDefault(u.getUserId(), "N/A"))
-                .findFirst().orElse("N/A");
-
-        String vendorName = vendors.stream()
-                .filter(v -> v.getVendorStatus() != null && v.getVendorStatus() == 1)
-                .map(v -> userNameMap.getOrDefault(v.getUserId(), "N/A"))
-                .findFirst().orElse("N/A");
-
-        // ===================== Beneficiary Details Enriched =====================
-        List<Map<String, Object>> beneficiaryDetails = beneficiaries.stream()
-                .map(b -> {
-                    Map<String, Object> map = new HashMap<>();
-                    map.put("beneficiaryId", b.getId());
-                    map.put("name", b.getName());
-                    map.put("phone", b.getPhone());
-                    map.put("approved", b.isIs_approved());
-                    map.put("makerName", makerName);
-                    map.put("checkerName", checkerName);
-                    map.put("issuerName", issuerName);
-                    map.put("vendorName", vendorName);
-                    return map;
-                })
-                .collect(Collectors.toList());
+        // Statuses with no vouchers are left out, as with a GROUP BY
+        long totalVouchers = stats.getVouchersTotal();
+        Map<String, Long> voucherStatus = new HashMap<>();
+        if (stats.getVouchersIssued() > 0) {
+            voucherStatus.put("ISSUED", stats.getVouchersIssued());
+        }
+        if (stats.getVouchersRedeemed() > 0) {
+            voucherStatus.put("REDEEMED", stats.getVouchersRedeemed());
+        }
+
+        long totalRedemptions = stats.getRedemptionsTotal();
+        Date lastRedeemed = stats.getLastRedeemedAt();
+        String lastRedeemedAt = lastRedeemed != null ? lastRedeemed.toString() : "N/A";
 
         // ===================== Final Dashboard Response =====================
         dashboard.put("projectId", projectId);
@@ -161,11 +146,67 @@ public class DashboardService {
         dashboard.put("checkerName", checkerName);
         dashboard.put("issuerName", issuerName);
         dashboard.put("vendorName", vendorName);
-        dashboard.put("beneficiaryList", beneficiaryDetails);
-        dashboard.put("vouchersList", vouchers);
-        dashboard.put("redemptionsList", redemptionsList);
 
         logger.info("Dashboard data successfully prepared for project ID: {}", projectId);
         return dashboard;
     }
+
+    /**
+     * Checks the project exists and resolves the requested page size (default
+     * {@code vres.dashboard.list.default-page-size}, capped at
+     * {@code max-page-size}). Called before a list response starts streaming, so
+     * errors still map to a normal error response.
+     */
+    public int resolveListPage(int projectId, Integer limit) {
+        if (limit != null && limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1.");
+        }
+        if (!projectsRepository.existsById(projectId)) {
+            throw new EntityNotFoundException("Project not found with id: " + projectId);
+        }
+        return limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+    }
+
+    /**
+     * Writes one page of the project's beneficiaries as
+     * {@code {"items": [...], "nextCursor": id|null}}; pass {@code nextCursor}
+     * as {@code after} to fetch the following page.
+     */
+    public void writeBeneficiaryPage(int projectId, int after, int limit, OutputStream out) throws IOException {
+        writePage(out, BeneficiaryDto.class, sink -> dashboardListReader.streamBeneficiaries(projectId, after, limit, sink));
+    }
+
+    public void writeVoucherPage(int projectId, int after, int limit, OutputStream out) throws IOException {
+        writePage(out, VoucherDto.class, sink -> dashboardListReader.streamVouchers(projectId, after, limit, sink));
+    }
+
+    public void writeRedemptionPage(int projectId, int after, int limit, OutputStream out) throws IOException {
+        writePage(out, RedemptionDto.class, sink -> dashboardListReader.streamRedemptions(projectId, after, limit, sink));
+    }
+
+    // Serializes each row as the cursor yields it; the cursor for the next page is only known at the end
+    private <T> void writePage(OutputStream out, Class<T> type, Function<Consumer<T>, Integer> reader) throws IOException {
+        ObjectWriter itemWriter = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartObject();
+            json.writeArrayFieldStart("items");
+            Integer nextCursor = reader.apply(item -> {
+                try {
+                    itemWriter.writeValue(json, item);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            json.writeEndArray();
+            if (nextCursor != null) {
+                json.writeNumberField("nextCursor", nextCursor);
+            } else {
+                json.writeNullField("nextCursor");
+            }
+            json.writeEndObject();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 }
@@ -5,6 +5,7 @@ import java.net.http.HttpClient; // Import HttpClient
 import java.net.http.HttpRequest; // Import HttpRequest
 import java.net.http.HttpResponse; // Import HttpResponse
 import java.time.Duration; // Import Duration
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 import org.slf4j.Logger;
@@ -183,4 +184,17 @@ public class EmailService {
         );
         sendEmail(user.getEmail(), user.getName(), subject, body);
     }
-}
\ No newline at end of file
+
+    // --- Device sync key for offline redemption; sent here rather than returned by the API ---
+    public void sendSyncKeyEmail(Users user, int keyId, String key, LocalDateTime expiresAt) {
+        String subject = "Your VRES device sync key";
+        String body = String.format(
+            "<p>Hi %s,</p>" +
+            "<p>A new device sync key was issued for your vendor account. Enter both values on the device that records redemptions for upload:</p>" +
+            "<p>Key id: <code>%d</code><br>Key: <code>%s</code></p>" +
+            "<p>The key expires on %s. If you did not request this key, revoke it and contact your project coordinator.</p>",
+            user.getName(), keyId, key, expiresAt.format(dateFormatter)
+        );
+        sendEmail(user.getEmail(), user.getName(), subject, body);
+    }
+}
@@ -0,0 +1,143 @@
+package com.vres.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vres.config.CustomUserDetails;
+import com.vres.exception.IdempotencyKeyConflictException;
+import com.vres.idempotency.IdempotencyRecord;
+import com.vres.idempotency.IdempotencyStore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key}.
+ * <p>
+ * The first request with a key claims it in the {@link IdempotencyStore}, runs,
+ * and on success stores its JSON response for {@code vres.idempotency.window-seconds}.
+ * Repeats within the window get that response back (with an
+ * {@code Idempotent-Replayed: true} header) without touching the service layer,
+ * so a retried initiate does not re-send the SMS and a retried confirm does not
+ * run the redemption again. Failed requests release the key, so they can be retried.
+ * <p>
+ * Keys are scoped to the authenticated user, so one caller can neither replay
+ * another's stored response nor block its requests by guessing its key. A key
+ * reused with a different request body is rejected (422); a repeat that
+ * arrives while the first request is still running gets 409. Requests without
+ * the header run as before.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    @Autowired private IdempotencyStore idempotencyStore;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${vres.idempotency.window-seconds:86400}")
+    private long windowSeconds;
+
+    // How long a claim blocks repeats before it is considered abandoned (e.g. the node died mid-request)
+    @Value("${vres.idempotency.lease-seconds:60}")
+    private long leaseSeconds;
+
+    /**
+     * Runs {@code action} for {@code request} under {@code key}, or replays the
+     * response stored for it. {@code scope} separates endpoints sharing a key space.
+     */
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<? extends ResponseEntity<?>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters.");
+        }
+
+        String storeKey = scope + ":" + currentPrincipal() + ":" + key;
+        String requestHash = hash(request);
+        IdempotencyRecord held = idempotencyStore.begin(storeKey, requestHash, Instant.now().plusSeconds(leaseSeconds));
+        if (held != null) {
+            if (!held.getRequestHash().equals(requestHash)) {
+                count(scope, "mismatch");
+                throw new IdempotencyKeyConflictException(HEADER + " was already used for a different request.", true);
+            }
+            if (!held.isCompleted()) {
+                count(scope, "in_progress");
+                throw new IdempotencyKeyConflictException("A request with this " + HEADER + " is still being processed.", false);
+            }
+            count(scope, "replayed");
+            logger.debug("Replaying stored response for {} key {}", scope, key);
+            return ResponseEntity.status(held.getStatusCode())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(REPLAYED_HEADER, "true")
+                    .body(held.getResponseBody());
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            idempotencyStore.release(storeKey);
+            throw e;
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            idempotencyStore.release(storeKey);
+            return response;
+        }
+        try {
+            idempotencyStore.complete(storeKey, response.getStatusCode().value(),
+                    objectMapper.writeValueAsString(response.getBody()), Instant.now().plusSeconds(windowSeconds));
+        } catch (Exception e) {
+            // The request itself succeeded; a repeat will simply run it again
+            logger.warn("Could not store response for {} key {}: {}", scope, key, e.getMessage());
+            idempotencyStore.release(storeKey);
+        }
+        count(scope, "executed");
+        return response;
+    }
+
+    // The user id for application users; the stored key column leaves room for it next to a full-length key
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return "anonymous";
+        }
+        if (authentication.getPrincipal() instanceof CustomUserDetails userDetails) {
+            return String.valueOf(userDetails.getUser().getId());
+        }
+        return authentication.getName();
+    }
+
+    private String hash(Object request) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash request for " + HEADER, e);
+        }
+    }
+
+    private void count(String scope, String result) {
+        meterRegistry.counter("vres.idempotency", "scope", scope, "result", result).increment();
+    }
+}
@@ -0,0 +1,20 @@
+package com.vres.service;
+
+/**
+ * Published when a write changes what a project's dashboard shows (beneficiaries
+ * uploaded or approved, vouchers issued or redeemed, users or validity changed).
+ * {@link DashboardCache} marks the project's cached dashboard stale once the
+ * publishing transaction commits.
+ */
+public class ProjectDataChangedEvent {
+
+    private final int projectId;
+
+    public ProjectDataChangedEvent(int projectId) {
+        this.projectId = projectId;
+    }
+
+    public int getProjectId() {
+        return projectId;
+    }
+}
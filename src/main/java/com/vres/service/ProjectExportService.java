@@ -0,0 +1,240 @@
+package com.vres.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import com.vres.repository.ProjectExportReader;
+import com.vres.repository.ProjectsRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * CSV and XLSX exports of a project's vouchers and redemptions.
+ * <p>
+ * Rows are written as {@link ProjectExportReader} reads them off the cursor, so
+ * memory stays flat however large the project is. CSV goes straight to the
+ * response through a buffered writer. XLSX goes through POI's
+ * {@link SXSSFWorkbook}, which keeps only {@code vres.export.xlsx.window-rows}
+ * rows in memory and spools the rest to a compressed temp file; the file is
+ * zipped to the response once the last row is read, and a sheet that reaches
+ * Excel's row limit continues on a new one.
+ */
+@Service
+public class ProjectExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectExportService.class);
+
+    // Phone numbers such as +91 (22) 1234-5678: digits and punctuation only, so nothing a spreadsheet could call
+    private static final Pattern PHONE_NUMBER = Pattern.compile("^\\+?[0-9 ()-]+$");
+
+    public enum Format {
+        CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8)),
+        XLSX("xlsx", MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        Format(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+    }
+
+    private static final List<String> VOUCHER_HEADERS = List.of("Voucher Code", "Status", "Issued On", "Beneficiary ID",
+            "Beneficiary Name", "Beneficiary Phone", "Beneficiary Approved", "QR Link");
+
+    private static final List<String> REDEMPTION_HEADERS = List.of("Redemption ID", "Voucher Code", "Redeemed On",
+            "Vendor ID", "Vendor Name", "Beneficiary Name", "Beneficiary Phone", "Latitude", "Longitude", "Device Fingerprint");
+
+    @Autowired
+    private ProjectExportReader projectExportReader;
+
+    @Autowired
+    private ProjectsRepository projectsRepository;
+
+    @Autowired
+    private VoucherService voucherService;
+
+    @Value("${vres.export.xlsx.window-rows:100}")
+    private int xlsxWindowRows;
+
+    /**
+     * Validates an export request before the response is committed, so an unknown
+     * project or format still gets a proper error status.
+     */
+    public Format resolveFormat(int projectId, String format) {
+        if (!projectsRepository.existsById(projectId)) {
+            throw new EntityNotFoundException("Project not found with id: " + projectId);
+        }
+        try {
+            return Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported export format: " + format + ". Use csv or xlsx.");
+        }
+    }
+
+    public void writeVouchers(int projectId, Format format, OutputStream out) throws IOException {
+        export("vouchers", projectId, format, out, VOUCHER_HEADERS, sink -> projectExportReader.streamVouchers(projectId, row -> {
+            Object[] withLink = new Object[row.length + 1];
+            System.arraycopy(row, 0, withLink, 0, row.length);
+            withLink[row.length] = voucherService.getPublicQrLink((String) row[0]);
+            sink.accept(withLink);
+        }));
+    }
+
+    public void writeRedemptions(int projectId, Format format, OutputStream out) throws IOException {
+        export("redemptions", projectId, format, out, REDEMPTION_HEADERS, sink -> projectExportReader.streamRedemptions(projectId, sink));
+    }
+
+    private void export(String what, int projectId, Format format, OutputStream out, List<String> headers,
+            ToLongFunction<Consumer<Object[]>> reader) throws IOException {
+        long started = System.currentTimeMillis();
+        long rows;
+        try {
+            rows = format == Format.CSV ? writeCsv(out, headers, reader) : writeXlsx(out, what, headers, reader);
+        } catch (UncheckedIOException e) {
+            // Usually the client going away mid-download
+            logger.warn("Export of {} for project {} as {} aborted: {}", what, projectId, format, e.getCause().getMessage());
+            throw e.getCause();
+        }
+        logger.info("Exported {} {} for project {} as {} in {} ms", rows, what, projectId, format,
+                System.currentTimeMillis() - started);
+    }
+
+    private long writeCsv(OutputStream out, List<String> headers, ToLongFunction<Consumer<Object[]>> reader) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        // Byte order mark, so Excel opens non-ASCII names as UTF-8
+        writer.write('\uFEFF');
+        writeCsvLine(writer, headers.toArray());
+        long rows = reader.applyAsLong(row -> {
+            try {
+                writeCsvLine(writer, row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] == null) {
+                continue;
+            }
+            String value = values[i] instanceof String text ? neutralizeFormula(text) : values[i].toString();
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Names, phones and fingerprints come from uploads and devices; a cell that
+     * starts like a formula would be evaluated when finance opens the file, so
+     * it is prefixed with an apostrophe to make the spreadsheet treat it as text.
+     * Numbers and dates are written by the exporter itself and left alone, as are
+     * phone numbers, whose leading {@code +} would otherwise end up in the cell.
+     */
+    static String neutralizeFormula(String value) {
+        if (!value.isEmpty() && !PHONE_NUMBER.matcher(value).matches()) {
+            char first = value.charAt(0);
+            if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+                return "'" + value;
+            }
+        }
+        return value;
+    }
+
+    private long writeXlsx(OutputStream out, String what, List<String> headers, ToLongFunction<Consumer<Object[]>> reader) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(xlsxWindowRows);
+        workbook.setCompressTempFiles(true);
+        try {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+            int maxRowIndex = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+            String sheetName = Character.toUpperCase(what.charAt(0)) + what.substring(1);
+            Sheet[] sheet = {newSheet(workbook, sheetName, headers)};
+            int[] rowIndex = {1};
+            long rows = reader.applyAsLong(values -> {
+                if (rowIndex[0] > maxRowIndex) {
+                    sheet[0] = newSheet(workbook, sheetName + " (" + (workbook.getNumberOfSheets() + 1) + ")", headers);
+                    rowIndex[0] = 1;
+                }
+                Row row = sheet[0].createRow(rowIndex[0]++);
+                for (int i = 0; i < values.length; i++) {
+                    Object value = values[i];
+                    if (value == null) {
+                        continue;
+                    }
+                    Cell cell = row.createCell(i);
+                    if (value instanceof Number number) {
+                        cell.setCellValue(number.doubleValue());
+                    } else if (value instanceof Boolean flag) {
+                        cell.setCellValue(flag);
+                    } else if (value instanceof LocalDate date) {
+                        cell.setCellValue(date);
+                        cell.setCellStyle(dateStyle);
+                    } else {
+                        cell.setCellValue(value.toString());
+                    }
+                }
+            });
+            workbook.write(out);
+            out.flush();
+            return rows;
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static Sheet newSheet(SXSSFWorkbook workbook, String name, List<String> headers) {
+        Sheet sheet = workbook.createSheet(name);
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < headers.size(); i++) {
+            header.createCell(i).setCellValue(headers.get(i));
+        }
+        return sheet;
+    }
+}
@@ -1,7 +1,6 @@
 package com.vres.service;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.sql.Date; 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -12,23 +11,18 @@ import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.DataFormatter;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.google.zxing.WriterException;
 import com.vres.dto.ApproverPairDto;
 import com.vres.dto.BeneficiaryDto;
+import com.vres.dto.IssuanceJobDto;
 import com.vres.dto.ProjectDetailsCreationRequest;
 import com.vres.dto.ProjectInitiationRequest;
 import com.vres.dto.ProjectResponse;
@@ -44,10 +38,10 @@ import com.vres.entity.Projects;
 import com.vres.entity.Roles;
 import com.vres.entity.Users;
 import com.vres.entity.Vouchers;
-import com.vres.generator.CodeGeneratorService;
-import com.vres.generator.QRCodeGenerator;
 import com.vres.repository.BeneficiariesRepository;
 import com.vres.repository.DepartmentRepository;
+import com.vres.repository.JdbcBatchWriter;
+import com.vres.repository.ProjectStatsWriter;
 import com.vres.repository.ProjectUserRepository;
 import com.vres.repository.ProjectsRepository;
 import com.vres.repository.RolesRepository;
@@ -69,9 +63,16 @@ public class ProjectService {
     @Autowired private DepartmentRepository departmentRepository;
     @Autowired private ProjectUserRepository projectUserRepository;
     @Autowired private VouchersRepository vouchersRepository;
-    @Autowired private CodeGeneratorService codeGeneratorService;
-    @Autowired private S3Service s3Service;
-    @Autowired private BrevoSmsService brevoSmsService;
+    @Autowired private JdbcBatchWriter jdbcBatchWriter;
+
+    @Value("${vres.import.chunk-size:1000}")
+    private int importChunkSize;
+    @Autowired private VoucherIssuanceJobService voucherIssuanceJobService;
+    @Autowired private VoucherService voucherService;
+    @Autowired private VendorAuthorizationIndex vendorAuthorizationIndex;
+    @Autowired private VoucherCodeCache voucherCodeCache;
+    @Autowired private ProjectStatsWriter projectStatsWriter;
+    @Autowired private ApplicationEventPublisher eventPublisher;
 
     /**
      * Retrieves projects where the user is assigned as the Project Coordinator.
@@ -155,6 +156,7 @@ public class ProjectService {
         newProject.setStatus("Draft");
         Projects savedProject = projectsRepository.save(newProject);
         logger.info("Project '{}' created with ID: {}", savedProject.getTitle(), savedProject.getId());
+        projectStatsWriter.createEmpty(savedProject.getId());
 
         // Create ProjectUser link
         ProjectUser newAssignment = new ProjectUser();
@@ -341,6 +343,7 @@ public class ProjectService {
              logger.info("No vendors list provided in request. Existing vendors remain unchanged for project ID: {}", projectId);
         }
         
+        eventPublisher.publishEvent(new ProjectDataChangedEvent(projectId));
         logger.info("Finished defining/updating details for project ID: {}", projectId);
     }
     
@@ -390,6 +393,9 @@ public class ProjectService {
                 linkToUpdate.setVendorStatus(vendorStatus);
             }
             projectUserRepository.save(linkToUpdate); 
+            if (vendorStatus != null) {
+                vendorAuthorizationIndex.invalidate(projectId);
+            }
             logger.debug("Role assignment updated.");
             
         } else {
@@ -408,6 +414,9 @@ public class ProjectService {
             newLink.setCreatedAt(LocalDateTime.now());  
             
             projectUserRepository.save(newLink); 
+            if (vendorStatus != null) {
+                vendorAuthorizationIndex.invalidate(projectId);
+            }
             isNewAssignmentOrRoleChange = true; // This is a new assignment
             logger.debug("New role assignment created.");
         }
@@ -447,7 +456,7 @@ public class ProjectService {
     }
 
     /**
-     * Processes the uploaded Excel files to import new beneficiaries for a project.
+     * Processes the uploaded Excel (.xlsx/.xls) or CSV files to import new beneficiaries for a project.
      * Includes validation against the registration end date.
      */
     @Transactional
@@ -472,73 +481,52 @@ public class ProjectService {
         
         if (files == null || files.length == 0) throw new IllegalStateException("No files uploaded.");
         
-        List<Beneficiaries> allBeneficiariesToSave = new ArrayList<>();
-        int rowNum = 0; // For logging row numbers
+        // Rows are streamed from each file and written in fixed-size chunks, so memory stays flat
+        List<Beneficiaries> chunk = new ArrayList<>(importChunkSize);
+        int[] saved = {0};
         for (MultipartFile file : files) {
             if (file.isEmpty()) continue;
             logger.info("Processing file: {}", file.getOriginalFilename());
-            try (InputStream inputStream = file.getInputStream()) {
-                Workbook workbook = WorkbookFactory.create(inputStream);
-                Sheet sheet = workbook.getSheetAt(0);
-                rowNum = 0; // Reset for each sheet/file
-                for (Row row : sheet) {
-                    rowNum = row.getRowNum();
-                    if (rowNum == 0) continue; // Skip header row
-                    
-                    String name = getCellValueAsString(row.getCell(0));
-                    String phone = getCellValueAsString(row.getCell(1));
-                    
-                    if (name != null && !name.trim().isEmpty() && phone != null && !phone.trim().isEmpty()) {
-                        Beneficiaries newBeneficiary = new Beneficiaries();
-                        newBeneficiary.setName(name);
-                        newBeneficiary.setPhone(phone); 
-                        newBeneficiary.setIs_approved(false);
-                        newBeneficiary.setProject(project);
-                        newBeneficiary.setDepartment(department);
-                        allBeneficiariesToSave.add(newBeneficiary);
-                    } else {
-                         logger.warn("Skipping row {} in file {}: Missing name or phone.", rowNum + 1, file.getOriginalFilename());
+            try {
+                int rows = BeneficiarySheetReader.read(file, (rowNumber, name, phone) -> {
+                    if (name == null || phone == null) {
+                        logger.warn("Skipping row {} in file {}: Missing name or phone.", rowNumber, file.getOriginalFilename());
+                        return;
                     }
-                }
-                 logger.info("Processed {} rows from file: {}", rowNum, file.getOriginalFilename());
+                    Beneficiaries newBeneficiary = new Beneficiaries();
+                    newBeneficiary.setName(name);
+                    newBeneficiary.setPhone(phone);
+                    newBeneficiary.setIs_approved(false);
+                    newBeneficiary.setProject(project);
+                    newBeneficiary.setDepartment(department);
+                    chunk.add(newBeneficiary);
+                    if (chunk.size() >= importChunkSize) {
+                        saved[0] += flushBeneficiaries(chunk);
+                    }
+                });
+                logger.info("Processed {} rows from file: {}", rows, file.getOriginalFilename());
             } catch (IOException e) {
-                 logger.error("Failed to parse Excel file {} at row {}", file.getOriginalFilename(), rowNum + 1, e);
+                logger.error("Failed to parse beneficiary file {}", file.getOriginalFilename(), e);
                 throw new RuntimeException("Failed to parse Excel file " + file.getOriginalFilename(), e);
             }
         }
-        if (!allBeneficiariesToSave.isEmpty()){
-             logger.info("Saving {} beneficiaries from uploaded files for project ID {}", allBeneficiariesToSave.size(), projectId);
-             beneficiariesRepository.saveAll(allBeneficiariesToSave);
+        saved[0] += flushBeneficiaries(chunk);
+        if (saved[0] > 0) {
+            logger.info("Saved {} beneficiaries from uploaded files for project ID {}", saved[0], projectId);
+            eventPublisher.publishEvent(new ProjectDataChangedEvent(projectId));
         } else {
-             logger.warn("No valid beneficiaries found in uploaded files for project ID {}", projectId);
+            logger.warn("No valid beneficiaries found in uploaded files for project ID {}", projectId);
         }
     }
 
-    /**
-     * Helper method to safely read cell values as String, handling various cell types.
-     */
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) {
-            return null;
-        }
-        DataFormatter formatter = new DataFormatter();
-        String cellValue = formatter.formatCellValue(cell).trim();
-
-        // Extra check: If original cell was string and starts with '+', ensure it's kept.
-        if (cell.getCellType() == CellType.STRING && cell.getStringCellValue().trim().startsWith("+")) {
-             return cell.getStringCellValue().trim();
+    private int flushBeneficiaries(List<Beneficiaries> chunk) {
+        if (chunk.isEmpty()) {
+            return 0;
         }
-
-        // Handle potential formulas
-        if (cell.getCellType() == CellType.FORMULA) {
-            try {
-                 return formatter.formatCellValue(cell, cell.getSheet().getWorkbook().getCreationHelper().createFormulaEvaluator()).trim();
-            } catch (Exception e) {
-                 logger.error("Error evaluating formula cell: {}", e.getMessage()); 
-                 return null;
-            }
-        }
-        return cellValue;
+        jdbcBatchWriter.insertBeneficiaries(chunk);
+        int count = chunk.size();
+        chunk.clear();
+        return count;
     }
 
     public List<BeneficiaryDto> getApprovedBeneficiariesForProject(int projectId, Integer departmentId) {
@@ -564,10 +552,12 @@ public class ProjectService {
     }
 
     /**
-     * Creates vouchers for approved beneficiaries after the registration period has ended.
+     * Validates a voucher request for approved beneficiaries after the registration period has
+     * ended, records the voucher settings on the project and submits an issuance job.
+     * Not transactional on purpose: the project update must be committed before the job's
+     * pipeline threads insert vouchers that reference the project row.
      */
-    @Transactional
-    public void createVouchersForProject(int projectId, VoucherCreationRequest request) {
+    public IssuanceJobDto createVouchersForProject(int projectId, VoucherCreationRequest request) {
          logger.info("Attempting to create vouchers for project ID: {}", projectId);
         Projects project = projectsRepository.findById(projectId)
                 .orElseThrow(() -> new EntityNotFoundException("Project not found with id: " + projectId));
@@ -607,12 +597,11 @@ public class ProjectService {
 
         // Update project VOUCHER details
         project.setVoucher_points(request.getVoucherPoints());
-        Date validityStartDate = Date.valueOf(requestedStartDate); 
-        Date validityEndDate = Date.valueOf(requestedEndDate);   
-        project.setVoucher_valid_from(validityStartDate);
-        project.setVoucher_valid_till(validityEndDate);
+        project.setVoucher_valid_from(Date.valueOf(requestedStartDate));
+        project.setVoucher_valid_till(Date.valueOf(requestedEndDate));
         projectsRepository.save(project);
         logger.info("Updated voucher details (points, validity) for project ID {}", projectId);
+        voucherCodeCache.invalidateProject(projectId);
 
         // Update vendor status if vendors are provided
         if (request.getVendors() != null && !request.getVendors().isEmpty()) {
@@ -622,69 +611,21 @@ public class ProjectService {
                 mapping.setVendorStatus(1);
             }
             projectUserRepository.saveAll(vendorMappings);
+            vendorAuthorizationIndex.invalidate(projectId);
         }
 
-        int successCount = 0;
-        int failureCount = 0;
-        // Iterate through beneficiaries to create vouchers and send SMS
-        for (Beneficiaries beneficiary : beneficiaries) {
-            
-            String phoneNumber = beneficiary.getPhone();
-             // Simple phone number check to prevent sending SMS to invalid numbers
-            if (phoneNumber == null || !phoneNumber.startsWith("+")) {
-                 logger.warn("Skipping SMS for beneficiary ID {}: Invalid or missing phone number format. Found: {}", beneficiary.getId(), phoneNumber);
-            }
-
-            String uniqueVoucherCode = null;
-            try {
-                 // Generate unique voucher code
-                 do {
-                     uniqueVoucherCode = codeGeneratorService.generateUniqueCode();
-                 } while (vouchersRepository.findByStringCode(uniqueVoucherCode).isPresent());
-                 logger.debug("Generated unique code {} for beneficiary ID {}", uniqueVoucherCode, beneficiary.getId());
-
-                 // Generate QR code and upload
-                 byte[] qrCodeBytes = QRCodeGenerator.generateQRCodeImage(uniqueVoucherCode, 300, 300);
-                 String qrLink = s3Service.uploadQRCode(qrCodeBytes, uniqueVoucherCode);
-                 logger.debug("QR code generated and uploaded for {}: {}", uniqueVoucherCode, qrLink);
-
-                 // Create and save voucher
-                 Vouchers newVoucher = new Vouchers();
-                 newVoucher.setProject(project);
-                 newVoucher.setBeneficiary(beneficiary);
-                 newVoucher.setStatus("ISSUED");
-                 newVoucher.setStringCode(uniqueVoucherCode);
-                 newVoucher.setQrCodeLink(qrLink);
-                 // Add issuedAt timestamp (from the first file's logic)
-                 newVoucher.setIssuedAt(LocalDate.now()); 
-                 vouchersRepository.save(newVoucher);
-                 logger.info("Voucher {} created successfully for beneficiary ID {}", uniqueVoucherCode, beneficiary.getId());
-
-                 // Send SMS only if phone number was valid (starting with '+')
-                 if (phoneNumber != null && phoneNumber.startsWith("+")) {
-                     brevoSmsService.sendVoucherSms(
-                         phoneNumber,
-                         uniqueVoucherCode,
-                         qrLink,
-                         validityStartDate,
-                         validityEndDate,
-                         request.getVoucherPoints(),
-                         project.getTitle()
-                     );
-                 } else {
-                      logger.warn("Skipped sending SMS for voucher {} due to invalid phone number.", uniqueVoucherCode);
-                 }
-                 successCount++;
+        // Issuance itself runs as a background job; progress is polled through getIssuanceJob
+        eventPublisher.publishEvent(new ProjectDataChangedEvent(projectId));
+        IssuanceJobDto job = voucherIssuanceJobService.submit(projectId, request.getBeneficiaryIds());
+        logger.info("Voucher issuance job {} submitted for project ID {}", job.getJobId(), projectId);
+        return job;
+    }
 
-            } catch (WriterException | IOException e) {
-                 logger.error("Failed to generate/upload QR code for voucher {} (Beneficiary ID {}): {}", uniqueVoucherCode != null ? uniqueVoucherCode : "N/A", beneficiary.getId(), e.getMessage());
-                 failureCount++;
-            } catch (Exception e) {
-                 logger.error("An unexpected error occurred while creating voucher or sending SMS for beneficiary ID {}: {}", beneficiary.getId(), e.getMessage(), e);
-                 failureCount++;
-            }
-        }
-         logger.info("Voucher creation process completed for project ID {}. Success: {}, Failures: {}", projectId, successCount, failureCount);
+    /**
+     * Returns the progress of a voucher issuance job.
+     */
+    public IssuanceJobDto getIssuanceJob(int projectId, int jobId) {
+        return voucherIssuanceJobService.getJob(projectId, jobId);
     }
     
     /**
@@ -701,7 +642,8 @@ public class ProjectService {
             ProjectVoucherDto dto = new ProjectVoucherDto();
             
             // Map Voucher details
-            dto.setQrCodeLink(voucher.getQrCodeLink());
+            // Vouchers store an object key; the public QR endpoint turns it into a fresh link
+            dto.setQrCodeLink(voucherService.getPublicQrLink(voucher.getStringCode()));
             dto.setVoucherStatus(voucher.getStatus());
             dto.setStringCode(voucher.getStringCode());
             dto.setIssuedAt(voucher.getIssuedAt());
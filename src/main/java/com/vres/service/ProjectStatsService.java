@@ -0,0 +1,133 @@
+package com.vres.service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.vres.entity.ProjectStats;
+import com.vres.repository.ProjectStatsWriter;
+import com.vres.repository.ProjectsRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Reads the per-project counters in {@code project_stats} and keeps them honest.
+ * <p>
+ * The counters are moved by deltas inside the transactions that upload,
+ * approve, issue and redeem (see {@link ProjectStatsWriter}), so reading them is
+ * a single primary-key lookup however large the project is. A project without
+ * a row is rebuilt from the base tables on first read.
+ * <p>
+ * A reconcile job rebuilds every project's row every
+ * {@code vres.project-stats.reconcile-interval-minutes}; the first pass, shortly
+ * after startup, also seeds rows for projects created before the table existed.
+ * Rows that had drifted are logged and counted in {@code vres.project_stats.drift}.
+ */
+@Service
+public class ProjectStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectStatsService.class);
+
+    @Autowired private ProjectStatsWriter projectStatsWriter;
+    @Autowired private ProjectsRepository projectsRepository;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${vres.project-stats.reconcile-enabled:true}")
+    private boolean reconcileEnabled;
+
+    @Value("${vres.project-stats.reconcile-initial-delay-seconds:60}")
+    private long reconcileInitialDelaySeconds;
+
+    @Value("${vres.project-stats.reconcile-interval-minutes:60}")
+    private long reconcileIntervalMinutes;
+
+    private ScheduledExecutorService reconciler;
+
+    @PostConstruct
+    void start() {
+        if (!reconcileEnabled) {
+            return;
+        }
+        reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "vres-project-stats-reconcile");
+            t.setDaemon(true);
+            return t;
+        });
+        reconciler.scheduleWithFixedDelay(this::reconcileAll, reconcileInitialDelaySeconds,
+                TimeUnit.MINUTES.toSeconds(reconcileIntervalMinutes), TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+    }
+
+    /**
+     * The project's counters. Must not be called inside a transaction that has
+     * changed the project's rows, since a missing row is rebuilt in a new one.
+     */
+    public ProjectStats get(int projectId) {
+        return projectStatsWriter.find(projectId).orElseGet(() -> {
+            // Only real projects get a row; the table has no foreign key to stop a stray id
+            if (!projectsRepository.existsById(projectId)) {
+                throw new EntityNotFoundException("Project not found with id: " + projectId);
+            }
+            return projectStatsWriter.rebuild(projectId)[1];
+        });
+    }
+
+    /**
+     * Rebuilds every project's counters from the base tables.
+     *
+     * @return the number of projects whose counters had drifted
+     */
+    public int reconcileAll() {
+        int drifted = 0;
+        try {
+            for (int projectId : projectsRepository.findAllIds()) {
+                if (reconcile(projectId)) {
+                    drifted++;
+                }
+            }
+            logger.info("Project stats reconciled, {} project(s) had drifted", drifted);
+        } catch (Exception e) {
+            logger.error("Project stats reconcile failed: {}", e.getMessage(), e);
+        }
+        return drifted;
+    }
+
+    private boolean reconcile(int projectId) {
+        ProjectStats[] rebuilt = projectStatsWriter.rebuild(projectId);
+        ProjectStats before = rebuilt[0];
+        ProjectStats after = rebuilt[1];
+        boolean drifted = before.getBeneficiariesTotal() != after.getBeneficiariesTotal()
+                || before.getBeneficiariesApproved() != after.getBeneficiariesApproved()
+                || before.getVouchersTotal() != after.getVouchersTotal()
+                || before.getVouchersIssued() != after.getVouchersIssued()
+                || before.getVouchersRedeemed() != after.getVouchersRedeemed()
+                || before.getRedemptionsTotal() != after.getRedemptionsTotal();
+        // A row never reconciled before is being seeded, not corrected
+        if (!drifted || before.getReconciledAt() == null) {
+            return false;
+        }
+        logger.warn("Project stats for project {} had drifted: beneficiaries {}/{} -> {}/{}, vouchers {} ({} issued, {} redeemed) -> {} ({}, {}), redemptions {} -> {}",
+                projectId, before.getBeneficiariesApproved(), before.getBeneficiariesTotal(),
+                after.getBeneficiariesApproved(), after.getBeneficiariesTotal(),
+                before.getVouchersTotal(), before.getVouchersIssued(), before.getVouchersRedeemed(),
+                after.getVouchersTotal(), after.getVouchersIssued(), after.getVouchersRedeemed(),
+                before.getRedemptionsTotal(), after.getRedemptionsTotal());
+        meterRegistry.counter("vres.project_stats.drift").increment();
+        return true;
+    }
+}
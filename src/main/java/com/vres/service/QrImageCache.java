@@ -0,0 +1,66 @@
+package com.vres.service;
+
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vres.dto.QrImageDto;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory cache of voucher QR images keyed by voucher code.
+ * <p>
+ * The cache is bounded by total image bytes (W-TinyLFU eviction), so bursts of
+ * beneficiaries opening their SMS links are served without repeated S3 GETs or
+ * re-renders. A QR image never changes for a given code, so entries need no
+ * expiry. Hit, miss and eviction counts are published as
+ * {@code cache.*{cache=vres.qr.images}} meters.
+ */
+@Component
+public class QrImageCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(QrImageCache.class);
+
+    // Rough per-entry cost beyond the image bytes (key, ETag, holder objects)
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${vres.qr.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    private Cache<String, QrImageDto> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String code, QrImageDto image) -> image.getBytes().length + ENTRY_OVERHEAD_BYTES)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "vres.qr.images");
+        logger.info("QR image cache initialized with a {} byte budget", maxBytes);
+    }
+
+    /**
+     * Returns the cached image for {@code code}, loading it with {@code loader}
+     * on a miss. Concurrent misses for the same code load it once.
+     */
+    public QrImageDto get(String code, Supplier<byte[]> loader) {
+        return cache.get(code, key -> {
+            byte[] bytes = loader.get();
+            return new QrImageDto(bytes, "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"");
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package com.vres.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.vres.exception.TooManyAttemptsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Caps lookups on the public QR endpoint per client IP, so it cannot be used to
+ * enumerate voucher codes.
+ * <p>
+ * Every lookup counts against {@code vres.qr.throttle.per-ip} per
+ * {@code window-seconds}. Lookups of codes that do not exist also count against
+ * the much smaller {@code misses-per-ip}; once that is spent the IP is refused
+ * before the lookup runs, so hits and misses look the same to a guesser.
+ * Beneficiaries follow a valid link and rarely miss, so mobile carriers putting
+ * many of them behind one IP are not penalised for it. Rejections are counted in
+ * {@code vres.qr.throttled{scope}}.
+ */
+@Component
+public class QrLookupThrottle {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${vres.qr.throttle.window-seconds:600}")
+    private long windowSeconds;
+
+    @Value("${vres.qr.throttle.per-ip:600}")
+    private int perIp;
+
+    @Value("${vres.qr.throttle.misses-per-ip:20}")
+    private int missesPerIp;
+
+    @Value("${vres.qr.throttle.stripes:64}")
+    private int stripes;
+
+    private SlidingWindowLimiter lookupLimiter;
+    private SlidingWindowLimiter missLimiter;
+
+    private Counter lookupRejections;
+    private Counter missRejections;
+
+    @PostConstruct
+    void init() {
+        long windowMillis = windowSeconds * 1000;
+        lookupLimiter = new SlidingWindowLimiter(perIp, windowMillis, stripes);
+        missLimiter = new SlidingWindowLimiter(missesPerIp, windowMillis, stripes);
+        lookupRejections = rejections("ip");
+        missRejections = rejections("misses");
+    }
+
+    public void checkLookup(String clientIp) {
+        long now = System.currentTimeMillis();
+        long retryAfterMillis = missLimiter.retryAfter(clientIp, now);
+        if (retryAfterMillis > 0) {
+            missRejections.increment();
+            throw new TooManyAttemptsException("Too many QR code lookups.", (retryAfterMillis + 999) / 1000);
+        }
+        retryAfterMillis = lookupLimiter.tryAcquire(clientIp, now);
+        if (retryAfterMillis > 0) {
+            lookupRejections.increment();
+            throw new TooManyAttemptsException("Too many QR code lookups.", (retryAfterMillis + 999) / 1000);
+        }
+    }
+
+    public void recordMiss(String clientIp) {
+        missLimiter.tryAcquire(clientIp, System.currentTimeMillis());
+    }
+
+    private Counter rejections(String scope) {
+        return Counter.builder("vres.qr.throttled")
+                .description("Public QR lookups rejected by the per-IP throttle")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+}
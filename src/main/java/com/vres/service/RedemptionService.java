@@ -1,52 +1,69 @@
 package com.vres.service;
 
-import java.sql.Date;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import com.vres.entity.Redemptions;
-import com.vres.entity.Users;
-import com.vres.entity.Vouchers;
-import com.vres.repository.ProjectUserRepository;
-import com.vres.repository.RedemptionsRepository;
-import com.vres.repository.UsersRepository;
-import com.vres.repository.VouchersRepository;
+import com.vres.dto.RedemptionView;
+import com.vres.otp.OtpStore;
+import com.vres.repository.RedemptionWriter;
 
 import jakarta.persistence.EntityNotFoundException;
 
 @Service
 public class RedemptionService {
 
+    private static final Logger logger = LoggerFactory.getLogger(RedemptionService.class);
+
     @Autowired
-    private RedemptionsRepository redemptionRepository;
-    
-    @Autowired
-    private VouchersRepository vouchersRepository;
-    
-    @Autowired
-    private UsersRepository usersRepository;
+    private RedemptionWriter redemptionWriter;
     
     @Autowired
-    private ProjectUserRepository projectUserRepository;
+    private VoucherCodeCache voucherCodeCache;
     
     @Value("${otp.validity.minutes:5}")
     private long otpValidityMinutes;
     
     @Autowired
-    private SnsService snsService;
+    private SmsOutboxService smsOutboxService;
+
+    @Autowired
+    private VendorAuthorizationIndex vendorAuthorizationIndex;
+
+    @Autowired
+    private OtpStore otpStore;
+
+    @Autowired
+    private RedemptionThrottle redemptionThrottle;
+
+    @Autowired
+    private StageTimer stageTimer;
 
-    public void initiateRedemption(String voucherCode, int vendorId) {
-        Vouchers voucher = vouchersRepository.findByStringCode(voucherCode)
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Issues a redemption OTP and queues its SMS. Returns the SMS outbox id, or
+     * {@code null} if the beneficiary has no phone number; delivery happens asynchronously.
+     * Attempts are throttled per voucher and per {@code userId}, the authenticated caller.
+     */
+    public Long initiateRedemption(String voucherCode, int vendorId, int userId) {
+        redemptionThrottle.checkInitiate(voucherCode, userId);
+
+        RedemptionView voucher = stageTimer.record(StageTimer.REDEMPTION, "lookup", () -> voucherCodeCache.get(voucherCode))
                 .orElseThrow(() -> new EntityNotFoundException("Voucher not found with code: " + voucherCode));
-        
-        boolean isVendorValid = projectUserRepository.existsByProjectIdAndUserIdAndVendorStatus(voucher.getProject().getId(), vendorId, 1);
-       
-        if (!isVendorValid) {
+
+        if (!stageTimer.record(StageTimer.REDEMPTION, "vendor_auth",
+                () -> vendorAuthorizationIndex.isAuthorized(voucher.getProjectId(), vendorId))) {
             throw new SecurityException("Vendor with ID " + vendorId + " is not authorized for this project.");
         }
 
@@ -55,29 +72,31 @@ public class RedemptionService {
         }
 
         LocalDate today = LocalDate.now();
-        LocalDate validFrom = voucher.getProject().getVoucher_valid_from().toLocalDate();
-        LocalDate validTill = voucher.getProject().getVoucher_valid_till().toLocalDate();
+        LocalDate validFrom = voucher.getValidFrom().toLocalDate();
+        LocalDate validTill = voucher.getValidTill().toLocalDate();
         if (today.isBefore(validFrom) || today.isAfter(validTill)) {
             throw new IllegalStateException("Voucher is outside its validity period.");
         }
 
-        String otp = String.format("%06d", (int) (Math.random() * 999999));
-        voucher.setRedemptionOtp(otp);
-        // --- TYPO FIXED ---
-        voucher.setRedemptionOtpIssuedTime(LocalDateTime.now());
-        // ------------------
-        vouchersRepository.save(voucher);
+        String otp = stageTimer.record(StageTimer.REDEMPTION, "otp_generate", () -> {
+            String generated = String.format("%06d", (int) (Math.random() * 999999));
+            otpStore.put(voucher.getStringCode(), generated, Instant.now().plus(otpValidityMinutes, ChronoUnit.MINUTES));
+            return generated;
+        });
 
-        String beneficiaryPhone = voucher.getBeneficiary().getPhone();
+        Long deliveryId = null;
+        String beneficiaryPhone = voucher.getBeneficiaryPhone();
         if (beneficiaryPhone != null && !beneficiaryPhone.isEmpty()) {
             String message = "Your OTP for voucher redemption is " + otp + ". It is valid for " + otpValidityMinutes + " minutes.";
-            snsService.publishSmsDirect(beneficiaryPhone, message);
+            deliveryId = stageTimer.record(StageTimer.REDEMPTION, "sms_enqueue", () -> smsOutboxService.enqueue(beneficiaryPhone, message));
         }
-        System.out.println("Redemption initiated for voucher: " + voucherCode + ", OTP: " + otp);
+        logger.info("Redemption initiated for voucher {} by vendor ID {}", voucherCode, vendorId);
+        return deliveryId;
     }
 
-    @Transactional
-    public void confirmRedemption(String voucherCode, String otp, int vendorId, Double geoLat, Double geoLon, String deviceFingerprint) {
+    // Not @Transactional: the only writes are the status flip and insert in RedemptionWriter's own short transaction
+    public void confirmRedemption(String voucherCode, String otp, int vendorId, int userId, Double geoLat, Double geoLon, String deviceFingerprint) {
+        redemptionThrottle.checkConfirm(voucherCode, userId);
     	
     	final double DEFAULT_LAT = 0.0;
         final double DEFAULT_LON = 0.0;
@@ -87,47 +106,41 @@ public class RedemptionService {
         if (geoLon == null) geoLon = DEFAULT_LON;
         if (deviceFingerprint == null || deviceFingerprint.trim().isEmpty()) deviceFingerprint = DEFAULT_FINGERPRINT;
         
-        Vouchers voucher = vouchersRepository.findByStringCode(voucherCode)
+        RedemptionView voucher = stageTimer.record(StageTimer.REDEMPTION, "lookup", () -> voucherCodeCache.get(voucherCode))
                 .orElseThrow(() -> new EntityNotFoundException("Voucher not found with code: " + voucherCode));
 
-        if (voucher.getRedemptionOtp() == null || !voucher.getRedemptionOtp().equals(otp)) {
-            throw new RuntimeException("Invalid OTP for voucher: " + voucherCode);
+        // Expired OTPs are dropped by the store, so "missing" covers both cases
+        String issuedOtp = stageTimer.record(StageTimer.REDEMPTION, "otp_verify", () -> otpStore.get(voucher.getStringCode()));
+        if (issuedOtp == null) {
+            throw new RuntimeException("OTP has expired or was not issued for voucher: " + voucherCode);
         }
-        
-        // --- TYPO FIXED ---
-        LocalDateTime otpExpiryTime = voucher.getRedemptionOtpIssuedTime().plusMinutes(otpValidityMinutes);
-        if (LocalDateTime.now().isAfter(otpExpiryTime)) {
-            voucher.setRedemptionOtp(null);
-            voucher.setRedemptionOtpIssuedTime(null);
-            // ------------------
-            vouchersRepository.save(voucher);
-            throw new RuntimeException("OTP has expired for voucher: " + voucherCode);
+        if (otp == null || !MessageDigest.isEqual(issuedOtp.getBytes(StandardCharsets.UTF_8), otp.getBytes(StandardCharsets.UTF_8))) {
+            throw new RuntimeException("Invalid OTP for voucher: " + voucherCode);
         }
 
-        Users vendor = usersRepository.findById(vendorId)
-        		.orElseThrow(() -> new EntityNotFoundException("Vendor not found with id: " + vendorId));
+        if (!stageTimer.record(StageTimer.REDEMPTION, "vendor_auth",
+                () -> vendorAuthorizationIndex.isAuthorized(voucher.getProjectId(), vendorId))) {
+            throw new SecurityException("Vendor with ID " + vendorId + " is not authorized for this project.");
+        }
         
         if (!"ISSUED".equalsIgnoreCase(voucher.getStatus())) {
             throw new IllegalStateException("Voucher cannot be redeemed. Status: " + voucher.getStatus());
         }
         
-        Redemptions redemption = new Redemptions();
-        redemption.setVoucher(voucher);
-        redemption.setVendor(vendor);
-        redemption.setRedeemed_date(new Date(System.currentTimeMillis()));
-        redemption.setGeo_lat(geoLat);
-        redemption.setGeo_lon(geoLon);
-        redemption.setDevice_fingerprint(deviceFingerprint);
-
-        redemptionRepository.save(redemption);
-
-        voucher.setStatus("REDEEMED");
-        voucher.setRedemptionOtp(null);
-        // --- TYPO FIXED ---
-        voucher.setRedemptionOtpIssuedTime(null);
-        // ------------------
-        vouchersRepository.save(voucher);
-
-        System.out.println("Redemption confirmed for voucher: " + voucherCode + " by vendor: " + vendor.getName());
+        // Compare-and-set on the status: of concurrent confirmations exactly one wins
+        double lat = geoLat;
+        double lon = geoLon;
+        String fingerprint = deviceFingerprint;
+        boolean redeemed = stageTimer.record(StageTimer.REDEMPTION, "redemption_insert",
+                () -> redemptionWriter.redeem(voucher.getVoucherId(), vendorId, lat, lon, fingerprint));
+        // Either way the cached ISSUED entry is stale now
+        voucherCodeCache.invalidate(voucher.getStringCode());
+        if (!redeemed) {
+            throw new IllegalStateException("Voucher cannot be redeemed. It was redeemed concurrently or is no longer ISSUED.");
+        }
+        otpStore.remove(voucher.getStringCode());
+        eventPublisher.publishEvent(new ProjectDataChangedEvent(voucher.getProjectId()));
+
+        logger.info("Redemption confirmed for voucher {} by vendor ID {}", voucherCode, vendorId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,322 @@
+package com.vres.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vres.dto.RedemptionSyncRecord;
+import com.vres.dto.RedemptionSyncResponse;
+import com.vres.dto.RedemptionSyncResult;
+import com.vres.entity.SyncKeys;
+import com.vres.entity.Users;
+import com.vres.generator.CodeGeneratorService;
+import com.vres.otp.OtpStore;
+import com.vres.repository.RedemptionWriter;
+import com.vres.repository.RedemptionWriter.LockedVoucher;
+import com.vres.repository.RedemptionWriter.RedemptionRow;
+import com.vres.repository.SyncKeysRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Applies redemptions that vendor devices recorded with poor connectivity and
+ * upload in bulk.
+ * <p>
+ * Each record carries the OTP the beneficiary gave, checked against the
+ * {@link OtpStore} like an online confirmation (and charged to the voucher's
+ * confirmation budget), so a record can only be applied while the OTP issued by
+ * the initiate call is still live. Sync is limited to users with the Vendor role,
+ * the vendor is always the signed-in user, and each device signs its records with
+ * its own key. A key is issued through {@link #issueSyncKey} and sent to the
+ * vendor's registered email address, never returned over the API. Keys are
+ * stored as {@link SyncKeys} rows with an expiry and a revoked flag, and derived
+ * from the server secret and the row id, so the key itself is never stored. An
+ * upload names its key; an unknown, expired or revoked key rejects the upload.
+ * <p>
+ * The device clock is not trusted either: a record dated before its key was
+ * issued is rejected, one older than {@code vres.redemption.sync.max-offline-hours}
+ * is rejected as stale, and one dated in the future is taken as redeemed now.
+ * <p>
+ * Records are processed in chunks of {@code vres.redemption.sync.chunk-size}, one
+ * short transaction per chunk: the chunk's vouchers are read and locked in one
+ * statement, checked in memory, then redeemed with one UPDATE and one batched
+ * INSERT. Every record gets its own result; re-uploading a record that was
+ * already applied reports ALREADY_REDEEMED, so devices can retry freely.
+ */
+@Service
+public class RedemptionSyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedemptionSyncService.class);
+
+    private static final String DEFAULT_FINGERPRINT = "default-device-fingerprint";
+
+    @Autowired private RedemptionWriter redemptionWriter;
+    @Autowired private SyncKeysRepository syncKeysRepository;
+    @Autowired private OtpStore otpStore;
+    @Autowired private RedemptionThrottle redemptionThrottle;
+    @Autowired private VendorAuthorizationIndex vendorAuthorizationIndex;
+    @Autowired private VoucherCodeCache voucherCodeCache;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Autowired private EmailService emailService;
+
+    @Value("${vres.redemption.sync.secret:}")
+    private String syncSecret;
+
+    @Value("${vres.redemption.sync.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${vres.redemption.sync.max-records:1000}")
+    private int maxRecords;
+
+    @Value("${vres.redemption.sync.max-offline-hours:72}")
+    private long maxOfflineHours;
+
+    @Value("${vres.redemption.sync.key-validity-days:90}")
+    private long keyValidityDays;
+
+    /**
+     * Issues a new device sync key for the vendor and emails it, with its key id
+     * and expiry, to the vendor's registered address.
+     */
+    public void issueSyncKey(Users vendor) {
+        if (vendor.getEmail() == null || vendor.getEmail().isBlank()) {
+            throw new IllegalStateException("Vendor has no registered email address to send the sync key to.");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        SyncKeys syncKey = new SyncKeys();
+        syncKey.setVendorId(vendor.getId());
+        syncKey.setIssuedAt(now);
+        syncKey.setExpiresAt(now.plusDays(keyValidityDays));
+        syncKey = syncKeysRepository.save(syncKey);
+        String key = Base64.getEncoder().encodeToString(deviceKey(syncKey.getId()));
+        emailService.sendSyncKeyEmail(vendor, syncKey.getId(), key, syncKey.getExpiresAt());
+        logger.info("Issued redemption sync key {} to vendor {} (expires {})", syncKey.getId(), vendor.getId(), syncKey.getExpiresAt());
+    }
+
+    /**
+     * Revokes one of the vendor's sync keys; uploads signed with it are rejected
+     * from then on.
+     */
+    public void revokeSyncKey(int vendorId, int keyId) {
+        SyncKeys syncKey = syncKeysRepository.findByIdAndVendorId(keyId, vendorId)
+                .orElseThrow(() -> new EntityNotFoundException("Sync key not found with id: " + keyId));
+        if (!syncKey.isRevoked()) {
+            syncKey.setRevoked(true);
+            syncKey.setRevokedAt(LocalDateTime.now());
+            syncKeysRepository.save(syncKey);
+            logger.info("Revoked redemption sync key {} of vendor {}", keyId, vendorId);
+        }
+    }
+
+    /**
+     * The string a record's signature covers:
+     * {@code vendorId|voucherCode|redeemedAt|geoLat|geoLon|deviceFingerprint|otp},
+     * coordinates with six decimals and missing values as empty strings.
+     */
+    public static String canonical(int vendorId, RedemptionSyncRecord record) {
+        return vendorId + "|" + nullToEmpty(record.getVoucherCode()) + "|" + record.getRedeemedAt() + "|"
+                + coordinate(record.getGeo_lat()) + "|" + coordinate(record.getGeo_lon()) + "|"
+                + nullToEmpty(record.getDeviceFingerprint()) + "|" + nullToEmpty(record.getOtp());
+    }
+
+    /**
+     * Applies the records signed with the vendor's sync key {@code keyId}.
+     *
+     * @throws SecurityException if the key is unknown, expired or revoked
+     */
+    public RedemptionSyncResponse sync(int vendorId, Integer keyId, List<RedemptionSyncRecord> records) {
+        if (records == null || records.isEmpty()) {
+            throw new IllegalArgumentException("No redemption records to sync.");
+        }
+        if (records.size() > maxRecords) {
+            throw new IllegalArgumentException("Too many redemption records: " + records.size() + " (max " + maxRecords + ").");
+        }
+        if (keyId == null) {
+            throw new IllegalArgumentException("keyId must name the device's sync key.");
+        }
+        SyncKeys syncKey = syncKeysRepository.findByIdAndVendorId(keyId, vendorId)
+                .orElseThrow(() -> new SecurityException("Unknown sync key."));
+        if (syncKey.isRevoked()) {
+            throw new SecurityException("Sync key " + keyId + " has been revoked.");
+        }
+        if (!syncKey.getExpiresAt().isAfter(LocalDateTime.now())) {
+            throw new SecurityException("Sync key " + keyId + " has expired; request a new one.");
+        }
+
+        long now = System.currentTimeMillis();
+        long keyIssuedAt = syncKey.getIssuedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        byte[] key = deviceKey(keyId);
+        long oldestAccepted = now - TimeUnit.HOURS.toMillis(maxOfflineHours);
+        RedemptionSyncResult[] results = new RedemptionSyncResult[records.size()];
+        long[] redeemedAt = new long[records.size()];
+        List<Integer> accepted = new ArrayList<>(records.size());
+        // Codes are matched case-insensitively, so duplicates and lookups go by the normalized code
+        String[] codes = new String[records.size()];
+        Set<String> seenCodes = new HashSet<>();
+        for (int i = 0; i < records.size(); i++) {
+            RedemptionSyncRecord record = records.get(i);
+            String code = record.getVoucherCode();
+            codes[i] = CodeGeneratorService.normalize(code);
+            if (!signatureMatches(key, canonical(vendorId, record), record.getSignature())) {
+                results[i] = new RedemptionSyncResult(code, RedemptionSyncResult.INVALID_SIGNATURE, "Record signature does not verify.");
+            } else if (record.getRedeemedAt() < keyIssuedAt) {
+                results[i] = new RedemptionSyncResult(code, RedemptionSyncResult.INVALID_TIMESTAMP, "Redemption time is before the device key was issued.");
+            } else if (record.getRedeemedAt() < oldestAccepted) {
+                results[i] = new RedemptionSyncResult(code, RedemptionSyncResult.STALE,
+                        "Redemption is older than the " + maxOfflineHours + " hour offline window.");
+            } else if (codes[i] == null) {
+                results[i] = new RedemptionSyncResult(code, RedemptionSyncResult.NOT_FOUND, "Voucher code is missing.");
+            } else if (!seenCodes.add(codes[i])) {
+                results[i] = new RedemptionSyncResult(code, RedemptionSyncResult.DUPLICATE_IN_BATCH, "Voucher appears earlier in this batch.");
+            } else {
+                // A device clock running ahead cannot date a redemption past the upload
+                redeemedAt[i] = Math.min(record.getRedeemedAt(), now);
+                accepted.add(i);
+            }
+        }
+
+        for (int from = 0; from < accepted.size(); from += chunkSize) {
+            List<Integer> chunk = accepted.subList(from, Math.min(from + chunkSize, accepted.size()));
+            List<String> redeemedCodes = transactionTemplate.execute(
+                    status -> applyChunk(vendorId, records, codes, redeemedAt, chunk, results));
+            // Like an online confirmation, a used OTP is gone once the redemption has committed
+            for (String code : redeemedCodes) {
+                otpStore.remove(code);
+            }
+        }
+
+        RedemptionSyncResponse response = new RedemptionSyncResponse(Arrays.asList(results));
+        logger.info("Redemption sync for vendor {}: {} records, {} redeemed, {} rejected",
+                vendorId, records.size(), response.getRedeemed(), response.getRejected());
+        return response;
+    }
+
+    // Returns the normalized codes redeemed in this chunk
+    private List<String> applyChunk(int vendorId, List<RedemptionSyncRecord> records, String[] codes, long[] redeemedAt,
+            List<Integer> chunk, RedemptionSyncResult[] results) {
+        Set<String> chunkCodes = new LinkedHashSet<>();
+        for (int index : chunk) {
+            chunkCodes.add(codes[index]);
+        }
+        Map<String, LockedVoucher> vouchers = redemptionWriter.lockVouchers(chunkCodes);
+
+        List<RedemptionRow> rows = new ArrayList<>(chunk.size());
+        List<Integer> redeemed = new ArrayList<>(chunk.size());
+        Set<Integer> projectIds = new HashSet<>();
+        for (int index : chunk) {
+            RedemptionSyncRecord record = records.get(index);
+            String code = record.getVoucherCode();
+            LockedVoucher voucher = vouchers.get(codes[index]);
+            LocalDate redeemedOn = Instant.ofEpochMilli(redeemedAt[index]).atZone(ZoneId.systemDefault()).toLocalDate();
+
+            if (voucher == null) {
+                results[index] = new RedemptionSyncResult(code, RedemptionSyncResult.NOT_FOUND, "Voucher not found.");
+            } else if (voucher.getRedeemedBy() != null) {
+                results[index] = voucher.getRedeemedBy() == vendorId
+                        ? new RedemptionSyncResult(code, RedemptionSyncResult.ALREADY_REDEEMED, "Voucher was already redeemed by this vendor.")
+                        : new RedemptionSyncResult(code, RedemptionSyncResult.NOT_REDEEMABLE, "Voucher was redeemed by another vendor.");
+            } else if (!redemptionThrottle.tryConfirmSynced(codes[index])) {
+                results[index] = new RedemptionSyncResult(code, RedemptionSyncResult.THROTTLED, "Too many OTP attempts for this voucher.");
+            } else if (!otpMatches(codes[index], record.getOtp())) {
+                results[index] = new RedemptionSyncResult(code, RedemptionSyncResult.INVALID_OTP,
+                        "OTP is invalid, has expired or was not issued for this voucher.");
+            } else if (!vendorAuthorizationIndex.isAuthorized(voucher.getProjectId(), vendorId)) {
+                results[index] = new RedemptionSyncResult(code, RedemptionSyncResult.NOT_AUTHORIZED, "Vendor is not authorized for this project.");
+            } else if (!"ISSUED".equalsIgnoreCase(voucher.getStatus())) {
+                results[index] = new RedemptionSyncResult(code, RedemptionSyncResult.NOT_REDEEMABLE, "Voucher status is " + voucher.getStatus() + ".");
+            } else if (redeemedOn.isBefore(voucher.getValidFrom()) || redeemedOn.isAfter(voucher.getValidTill())) {
+                results[index] = new RedemptionSyncResult(code, RedemptionSyncResult.OUTSIDE_VALIDITY, "Redemption date is outside the voucher validity period.");
+            } else {
+                String fingerprint = record.getDeviceFingerprint() == null || record.getDeviceFingerprint().isBlank()
+                        ? DEFAULT_FINGERPRINT : record.getDeviceFingerprint();
+                rows.add(new RedemptionRow(voucher.getId(), Date.valueOf(redeemedOn),
+                        record.getGeo_lat() != null ? record.getGeo_lat() : 0.0,
+                        record.getGeo_lon() != null ? record.getGeo_lon() : 0.0, fingerprint));
+                redeemed.add(index);
+                projectIds.add(voucher.getProjectId());
+            }
+        }
+
+        redemptionWriter.redeemAll(vendorId, rows);
+        List<String> redeemedCodes = new ArrayList<>(redeemed.size());
+        for (int index : redeemed) {
+            redeemedCodes.add(codes[index]);
+            results[index] = new RedemptionSyncResult(records.get(index).getVoucherCode(), RedemptionSyncResult.REDEEMED, "Voucher redeemed.");
+        }
+        voucherCodeCache.invalidateAll(redeemedCodes);
+        // Delivered once the chunk's transaction commits
+        for (int projectId : projectIds) {
+            eventPublisher.publishEvent(new ProjectDataChangedEvent(projectId));
+        }
+        return redeemedCodes;
+    }
+
+    // Expired OTPs are dropped by the store, so "missing" covers both cases
+    private boolean otpMatches(String code, String otp) {
+        String issuedOtp = otpStore.get(code);
+        return issuedOtp != null && otp != null
+                && MessageDigest.isEqual(issuedOtp.getBytes(StandardCharsets.UTF_8), otp.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private byte[] deviceKey(int keyId) {
+        if (syncSecret == null || syncSecret.isBlank()) {
+            throw new IllegalStateException("Redemption sync is not configured (vres.redemption.sync.secret).");
+        }
+        return hmac(syncSecret.getBytes(StandardCharsets.UTF_8), "sync-key:" + keyId);
+    }
+
+    private static boolean signatureMatches(byte[] key, String canonical, String signature) {
+        if (signature == null) {
+            return false;
+        }
+        byte[] expected = HexFormat.of().formatHex(hmac(key, canonical)).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, signature.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private static String coordinate(Double value) {
+        return value == null ? "" : String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,115 @@
+package com.vres.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.vres.exception.TooManyAttemptsException;
+import com.vres.generator.CodeGeneratorService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Caps redemption attempts per voucher and per vendor, in memory and before any
+ * query runs, so floods of OTP guesses never reach the database.
+ * <p>
+ * Limits apply over a sliding window of {@code vres.redemption.throttle.window-seconds}:
+ * OTP requests and OTP confirmations per voucher code are limited separately,
+ * and every attempt counts against the vendor's overall budget. Voucher budgets
+ * are keyed on the normalized code, so case or whitespace variants share one;
+ * vendor budgets are keyed on the authenticated user, never on a vendor id taken
+ * from the request body. Rejections are
+ * counted in {@code vres.redemption.throttled{operation, scope}}.
+ */
+@Component
+public class RedemptionThrottle {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${vres.redemption.throttle.window-seconds:300}")
+    private long windowSeconds;
+
+    @Value("${vres.redemption.throttle.initiate-per-voucher:3}")
+    private int initiatePerVoucher;
+
+    @Value("${vres.redemption.throttle.confirm-per-voucher:5}")
+    private int confirmPerVoucher;
+
+    @Value("${vres.redemption.throttle.per-vendor:300}")
+    private int perVendor;
+
+    @Value("${vres.redemption.throttle.stripes:64}")
+    private int stripes;
+
+    private SlidingWindowLimiter initiateVoucherLimiter;
+    private SlidingWindowLimiter confirmVoucherLimiter;
+    private SlidingWindowLimiter vendorLimiter;
+
+    private Counter initiateVoucherRejections;
+    private Counter initiateVendorRejections;
+    private Counter confirmVoucherRejections;
+    private Counter confirmVendorRejections;
+
+    @PostConstruct
+    void init() {
+        long windowMillis = windowSeconds * 1000;
+        initiateVoucherLimiter = new SlidingWindowLimiter(initiatePerVoucher, windowMillis, stripes);
+        confirmVoucherLimiter = new SlidingWindowLimiter(confirmPerVoucher, windowMillis, stripes);
+        vendorLimiter = new SlidingWindowLimiter(perVendor, windowMillis, stripes);
+
+        initiateVoucherRejections = rejections("initiate", "voucher");
+        initiateVendorRejections = rejections("initiate", "vendor");
+        confirmVoucherRejections = rejections("confirm", "voucher");
+        confirmVendorRejections = rejections("confirm", "vendor");
+    }
+
+    public void checkInitiate(String voucherCode, int userId) {
+        check(vendorLimiter, "user:" + userId, initiateVendorRejections,
+                "Too many redemption attempts by this account.");
+        check(initiateVoucherLimiter, voucherKey(voucherCode), initiateVoucherRejections,
+                "Too many OTP requests for voucher: " + voucherCode);
+    }
+
+    public void checkConfirm(String voucherCode, int userId) {
+        check(vendorLimiter, "user:" + userId, confirmVendorRejections,
+                "Too many redemption attempts by this account.");
+        check(confirmVoucherLimiter, voucherKey(voucherCode), confirmVoucherRejections,
+                "Too many OTP attempts for voucher: " + voucherCode);
+    }
+
+    /**
+     * Charges the OTP check of one uploaded sync record against the voucher's
+     * confirmation budget. The vendor budget is not charged, since one upload
+     * carries many records. Returns false if the budget is spent.
+     */
+    public boolean tryConfirmSynced(String voucherCode) {
+        if (confirmVoucherLimiter.tryAcquire(voucherKey(voucherCode), System.currentTimeMillis()) > 0) {
+            confirmVoucherRejections.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private static String voucherKey(String voucherCode) {
+        return String.valueOf(CodeGeneratorService.normalize(voucherCode));
+    }
+
+    private void check(SlidingWindowLimiter limiter, String key, Counter rejections, String message) {
+        long retryAfterMillis = limiter.tryAcquire(key, System.currentTimeMillis());
+        if (retryAfterMillis > 0) {
+            rejections.increment();
+            throw new TooManyAttemptsException(message, (retryAfterMillis + 999) / 1000);
+        }
+    }
+
+    private Counter rejections(String operation, String scope) {
+        return Counter.builder("vres.redemption.throttled")
+                .description("Redemption attempts rejected by the attempt throttle")
+                .tag("operation", operation)
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+}
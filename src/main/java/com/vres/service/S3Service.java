@@ -1,90 +1,78 @@
 package com.vres.service;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
-import java.util.Date;
+import java.time.Duration;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.amazonaws.HttpMethod;
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
-import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
-import com.amazonaws.services.s3.model.GetObjectRequest;
-import com.amazonaws.services.s3.model.ObjectMetadata;
-import com.amazonaws.services.s3.model.S3Object;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vres.storage.ObjectStore;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * QR image storage used by issuance and the QR endpoints. The backing store is
+ * whichever {@link ObjectStore} is configured by {@code vres.object-store.type};
+ * the class keeps its name because the S3 bucket is the default.
+ */
 @Service
 public class S3Service {
 
-    private final AmazonS3 s3Client;
-
-    @Value("${spring.cloud.aws.region.static}")
-    private String region;
-
-    @Value("${spring.cloud.aws.credentials.access-key}")
-    private String accessKey;
+    @Autowired
+    private ObjectStore objectStore;
 
-    @Value("${spring.cloud.aws.credentials.secret-key}")
-    private String secretKey;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-    private final String bucketName = "vres-qr";
-    
     @Value("${aws.s3.presigned-url.duration-minutes:15}")
     private long presignedUrlDurationMinutes;
 
-    public S3Service(
-            @Value("${spring.cloud.aws.credentials.access-key}") String accessKey,
-            @Value("${spring.cloud.aws.credentials.secret-key}") String secretKey,
-            @Value("${spring.cloud.aws.region.static}") String region) {
+    // Object key -> presigned URL, kept for half the URL's lifetime so every URL handed out stays valid a while
+    private Cache<String, String> presignedUrls;
 
-        BasicAWSCredentials awsCreds = new BasicAWSCredentials(accessKey, secretKey);
-
-        this.s3Client = AmazonS3ClientBuilder.standard()
-                .withRegion(region)
-                .withCredentials(new AWSStaticCredentialsProvider(awsCreds))
+    @PostConstruct
+    void init() {
+        presignedUrls = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(Math.max(1, presignedUrlDurationMinutes * 60 / 2)))
+                .maximumSize(100_000)
+                .recordStats()
                 .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, presignedUrls, "vres.qr.presigned-urls");
     }
 
+    /**
+     * Stores the QR image and returns the object key, which is what vouchers
+     * keep as their QR link. URLs are minted on demand by {@link #presignedUrl}.
+     */
     public String uploadQRCode(byte[] qrImage, String s3ObjectKey) {
-        ByteArrayInputStream inputStream = new ByteArrayInputStream(qrImage);
-        ObjectMetadata metadata = new ObjectMetadata();
-        metadata.setContentLength(qrImage.length);
-        metadata.setContentType("image/png");
-
-        s3Client.putObject(bucketName, s3ObjectKey, inputStream, metadata);
-        try {
-            Date expiration = new Date();
-            long expTimeMillis = expiration.getTime();
-            expTimeMillis += 1000 * 60 * presignedUrlDurationMinutes;
-            expiration.setTime(expTimeMillis);
+        objectStore.put(s3ObjectKey, qrImage, "image/png");
+        return s3ObjectKey;
+    }
 
-            GeneratePresignedUrlRequest generatePresignedUrlRequest =
-                    new GeneratePresignedUrlRequest(bucketName, s3ObjectKey)
-                            .withMethod(HttpMethod.GET)
-                            .withExpiration(expiration);
-            URL url = s3Client.generatePresignedUrl(generatePresignedUrlRequest);
-            return url.toString();
-        } catch (Exception e) {
-            return s3Client.getUrl(bucketName, s3ObjectKey).toString();
-        }
+    /**
+     * Returns a presigned URL for a stored QR, or {@code null} if the configured
+     * store cannot be reached by clients directly. Accepts an object key or a
+     * full link (vouchers issued before keys were stored). Each key is re-signed
+     * at most once per cache window.
+     */
+    public String presignedUrl(String s3Link) {
+        return presignedUrls.get(extractKeyFromS3Link(s3Link), objectStore::url);
     }
 
     public byte[] downloadFileAsBytes(String s3Link) {
-        try {
-            String objectKey = extractKeyFromS3Link(s3Link);
-            S3Object s3Object = s3Client.getObject(new GetObjectRequest(bucketName, objectKey));
-            InputStream inputStream = s3Object.getObjectContent();
-            return inputStream.readAllBytes();
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to download file from S3: " + s3Link, e);
+        String objectKey = extractKeyFromS3Link(s3Link);
+        byte[] bytes = objectStore.get(objectKey);
+        if (bytes == null) {
+            throw new EntityNotFoundException("Stored object not found: " + objectKey);
         }
+        return bytes;
     }
 
 	private String extractKeyFromS3Link(String s3Link) {
@@ -93,6 +81,7 @@ public class S3Service {
             String path = url.getPath();
             return path.startsWith("/") ? path.substring(1) : path;
         } catch (Exception e) {
+            // Bare keys (non-S3 stores) are not absolute URLs and end up here
             return s3Link.substring(s3Link.lastIndexOf("/") + 1);
         }
     }
@@ -0,0 +1,125 @@
+package com.vres.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * In-memory sliding-window rate limiter keyed by string.
+ * <p>
+ * Each key keeps two fixed-window counters (current and previous); the count
+ * in the sliding window is estimated as {@code previous * overlap + current},
+ * which is exact for a steady rate and never under-counts a burst by more than
+ * one window's share. Keys are spread over independently locked stripes, so
+ * unrelated keys rarely contend. Stale keys are swept from a stripe every
+ * {@value #SWEEP_EVERY} operations on it, keeping memory proportional to the
+ * keys active in the last two windows.
+ */
+final class SlidingWindowLimiter {
+
+    private static final int SWEEP_EVERY = 1024;
+
+    private final int limit;
+    private final long windowMillis;
+    private final Stripe[] stripes;
+
+    SlidingWindowLimiter(int limit, long windowMillis, int stripeCount) {
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+        // Power of two so the stripe index is a mask
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    private static final class Stripe {
+        final Map<String, Window> windows = new HashMap<>();
+        int operations;
+    }
+
+    private static final class Window {
+        long start;
+        int current;
+        int previous;
+    }
+
+    /**
+     * Records an attempt for {@code key} and returns 0 if it is within the limit.
+     * Otherwise the attempt is not counted and the result is the number of
+     * milliseconds until an attempt would next be allowed (at least 1).
+     */
+    long tryAcquire(String key, long nowMillis) {
+        return check(key, nowMillis, true);
+    }
+
+    /**
+     * Like {@link #tryAcquire} but records nothing: 0 if an attempt would be
+     * allowed now, otherwise the milliseconds until one would be.
+     */
+    long retryAfter(String key, long nowMillis) {
+        return check(key, nowMillis, false);
+    }
+
+    private long check(String key, long nowMillis, boolean record) {
+        Stripe stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+        synchronized (stripe) {
+            if (++stripe.operations >= SWEEP_EVERY) {
+                stripe.operations = 0;
+                sweep(stripe, nowMillis);
+            }
+            Window window = stripe.windows.get(key);
+            if (window == null) {
+                if (!record) {
+                    return limit > 0 ? 0 : windowMillis;
+                }
+                window = new Window();
+                window.start = nowMillis - Math.floorMod(nowMillis, windowMillis);
+                stripe.windows.put(key, window);
+            }
+            roll(window, nowMillis);
+
+            long elapsed = nowMillis - window.start;
+            double estimate = window.previous * (1.0 - (double) elapsed / windowMillis) + window.current;
+            if (estimate + 1 > limit) {
+                // Wait until enough of the previous window slides out, or the current one ends
+                long retryAfter = window.previous > 0 && window.current < limit
+                        ? (long) Math.ceil(((estimate + 1 - limit) / window.previous) * windowMillis)
+                        : window.start + windowMillis - nowMillis;
+                return Math.max(1, Math.min(retryAfter, window.start + 2 * windowMillis - nowMillis));
+            }
+            if (record) {
+                window.current++;
+            }
+            return 0;
+        }
+    }
+
+    private void roll(Window window, long nowMillis) {
+        long windowsPassed = (nowMillis - window.start) / windowMillis;
+        if (windowsPassed == 1) {
+            window.previous = window.current;
+            window.current = 0;
+            window.start += windowMillis;
+        } else if (windowsPassed > 1) {
+            window.previous = 0;
+            window.current = 0;
+            window.start += windowsPassed * windowMillis;
+        }
+    }
+
+    private void sweep(Stripe stripe, long nowMillis) {
+        Iterator<Window> windows = stripe.windows.values().iterator();
+        while (windows.hasNext()) {
+            // Nothing left to count once two full windows have passed
+            if (nowMillis - windows.next().start >= 2 * windowMillis) {
+                windows.remove();
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,214 @@
+package com.vres.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vres.dto.SmsDeliveryDto;
+import com.vres.entity.SmsOutbox;
+import com.vres.repository.SmsOutboxRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Durable, asynchronous SMS delivery.
+ * <p>
+ * {@link #enqueue} only inserts an {@code sms_outbox} row, so callers never wait
+ * on SNS. A dispatcher thread drains the outbox: it claims up to
+ * {@code batch-size} due rows (SELECT ... FOR UPDATE SKIP LOCKED, so several
+ * instances can drain side by side), publishes the batch in parallel and records
+ * each outcome. Failed sends are retried with exponential backoff until
+ * {@code max-attempts}; a row claimed by an instance that died is picked up again
+ * once its lease lapses.
+ * <p>
+ * The dispatcher polls every {@code poll-millis} and is also woken on enqueue
+ * (after commit, when enqueued inside a transaction), so an idle outbox
+ * delivers without waiting for the next poll.
+ */
+@Service
+public class SmsOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmsOutboxService.class);
+
+    public static final String PENDING = "PENDING";
+    public static final String SENDING = "SENDING";
+    public static final String SENT = "SENT";
+    public static final String FAILED = "FAILED";
+
+    @Autowired private SmsOutboxRepository smsOutboxRepository;
+    @Autowired private SnsService snsService;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private StageTimer stageTimer;
+
+    @Value("${vres.sms.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${vres.sms.outbox.poll-millis:1000}")
+    private long pollMillis;
+
+    @Value("${vres.sms.outbox.send-threads:8}")
+    private int sendThreads;
+
+    @Value("${vres.sms.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${vres.sms.outbox.retry-base-seconds:5}")
+    private long retryBaseSeconds;
+
+    @Value("${vres.sms.outbox.lease-seconds:60}")
+    private long leaseSeconds;
+
+    private ScheduledExecutorService dispatcher;
+    private ExecutorService senders;
+    private final AtomicBoolean wakeUpQueued = new AtomicBoolean();
+
+    @PostConstruct
+    void start() {
+        dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "vres-sms-outbox");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger counter = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(sendThreads, r -> {
+            Thread t = new Thread(r, "vres-sms-sender-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        dispatcher.scheduleWithFixedDelay(this::drain, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Queues an SMS for delivery and returns its outbox id. Inside a caller's
+     * transaction the row commits, and the dispatcher is woken, with that
+     * transaction; otherwise the row is committed on return.
+     */
+    public long enqueue(String phone, String message) {
+        SmsOutbox sms = new SmsOutbox();
+        sms.setPhone(phone);
+        sms.setMessage(message);
+        sms.setStatus(PENDING);
+        sms.setCreatedAt(LocalDateTime.now());
+        sms.setNextAttemptAt(sms.getCreatedAt());
+        sms = smsOutboxRepository.save(sms);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A drain before the commit would not see the row yet
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp();
+                }
+            });
+        } else {
+            wakeUp();
+        }
+        return sms.getId();
+    }
+
+    // Runs on the dispatcher thread, so it never overlaps a scheduled drain; bursts share one wake-up
+    private void wakeUp() {
+        if (wakeUpQueued.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                wakeUpQueued.set(false);
+                drain();
+            });
+        }
+    }
+
+    public SmsDeliveryDto getDelivery(long id) {
+        SmsOutbox sms = smsOutboxRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("SMS delivery not found with id: " + id));
+        return toDto(sms);
+    }
+
+    // Drains due rows batch by batch until a claim comes back short
+    void drain() {
+        try {
+            List<SmsOutbox> batch;
+            do {
+                batch = claimBatch();
+                send(batch);
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            logger.error("SMS outbox dispatch failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private List<SmsOutbox> claimBatch() {
+        List<Long> ids = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> due = smsOutboxRepository.lockDueIds(now, batchSize);
+            if (!due.isEmpty()) {
+                smsOutboxRepository.claim(due, now.plusSeconds(leaseSeconds));
+            }
+            return due;
+        });
+        return ids == null || ids.isEmpty() ? List.of() : smsOutboxRepository.findAllById(ids);
+    }
+
+    private void send(List<SmsOutbox> batch) {
+        List<CompletableFuture<Void>> sends = new ArrayList<>(batch.size());
+        for (SmsOutbox sms : batch) {
+            sends.add(CompletableFuture.runAsync(() -> sendOne(sms), senders));
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void sendOne(SmsOutbox sms) {
+        try {
+            String messageId = stageTimer.record(StageTimer.SMS, "sns_publish",
+                    () -> snsService.publishSmsDirect(sms.getPhone(), sms.getMessage()));
+            LocalDateTime sentAt = LocalDateTime.now();
+            smsOutboxRepository.markSent(sms.getId(), messageId, sentAt);
+            // Enqueue to delivery, including time spent waiting in the outbox and on retries
+            stageTimer.record(StageTimer.SMS, "outbox_delivery", true, Duration.between(sms.getCreatedAt(), sentAt).toNanos());
+        } catch (Exception e) {
+            // attempts already counts this try (incremented when the row was claimed)
+            boolean exhausted = sms.getAttempts() >= maxAttempts;
+            long backoffSeconds = retryBaseSeconds << Math.min(sms.getAttempts() - 1, 16);
+            smsOutboxRepository.markAttemptFailed(sms.getId(), exhausted ? FAILED : PENDING, e.getMessage(),
+                    LocalDateTime.now().plusSeconds(backoffSeconds));
+            if (exhausted) {
+                logger.error("SMS {} to {} failed after {} attempts: {}", sms.getId(), sms.getPhone(), sms.getAttempts(), e.getMessage());
+            } else {
+                logger.warn("SMS {} attempt {} failed, retrying in {}s: {}", sms.getId(), sms.getAttempts(), backoffSeconds, e.getMessage());
+            }
+        }
+    }
+
+    private SmsDeliveryDto toDto(SmsOutbox sms) {
+        SmsDeliveryDto dto = new SmsDeliveryDto();
+        dto.setDeliveryId(sms.getId());
+        dto.setStatus(sms.getStatus());
+        dto.setAttempts(sms.getAttempts());
+        dto.setLastError(sms.getLastError());
+        dto.setCreatedAt(sms.getCreatedAt());
+        dto.setSentAt(sms.getSentAt());
+        return dto;
+    }
+}
@@ -0,0 +1,85 @@
+package com.vres.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.vres.repository.ProjectUserRepository;
+
+/**
+ * Per-project set of active vendor user IDs (project_user.vendor_status = 1),
+ * used to authorize redemptions without a query.
+ * <p>
+ * Each project's set is a sorted {@code int[]} loaded on first use, so a check
+ * is a binary search with no allocation. Writers of vendor_status call
+ * {@link #invalidate(int)}; entries are also reloaded after
+ * {@code vres.vendor-auth.ttl-seconds} to bound staleness from changes made by
+ * other instances.
+ */
+@Component
+public class VendorAuthorizationIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(VendorAuthorizationIndex.class);
+
+    @Autowired
+    private ProjectUserRepository projectUserRepository;
+
+    @Value("${vres.vendor-auth.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private final ConcurrentHashMap<Integer, VendorSet> vendorsByProject = new ConcurrentHashMap<>();
+
+    public boolean isAuthorized(int projectId, int vendorId) {
+        VendorSet vendors = vendorsByProject.get(projectId);
+        if (vendors == null || System.nanoTime() - vendors.loadedAt > TimeUnit.SECONDS.toNanos(ttlSeconds)) {
+            vendors = load(projectId);
+        }
+        return Arrays.binarySearch(vendors.ids, vendorId) >= 0;
+    }
+
+    /**
+     * Drops the project's cached vendor set. Inside a transaction the set is
+     * dropped again after commit, so a reload racing the transaction cannot
+     * keep the pre-commit state.
+     */
+    public void invalidate(int projectId) {
+        vendorsByProject.remove(projectId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    vendorsByProject.remove(projectId);
+                }
+            });
+        }
+        logger.debug("Vendor authorization index invalidated for project ID {}", projectId);
+    }
+
+    private VendorSet load(int projectId) {
+        List<Integer> ids = projectUserRepository.findActiveVendorIds(projectId);
+        int[] sorted = ids.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        VendorSet vendors = new VendorSet(sorted, System.nanoTime());
+        vendorsByProject.put(projectId, vendors);
+        logger.debug("Loaded {} active vendor(s) for project ID {}", sorted.length, projectId);
+        return vendors;
+    }
+
+    private static final class VendorSet {
+        final int[] ids;
+        final long loadedAt;
+
+        VendorSet(int[] ids, long loadedAt) {
+            this.ids = ids;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
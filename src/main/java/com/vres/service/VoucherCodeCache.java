@@ -0,0 +1,146 @@
+package com.vres.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.vres.dto.RedemptionView;
+import com.vres.generator.CodeGeneratorService;
+import com.vres.repository.VouchersRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Read-through cache of redemption views keyed by voucher code, so repeated and
+ * mistyped codes typed at the counter do not each cost a query.
+ * <p>
+ * Every method keys on {@link CodeGeneratorService#normalize}, so a code typed in
+ * lower case or with stray whitespace shares the entry that redemption and
+ * issuance invalidate.
+ * <p>
+ * Known codes are kept for {@code vres.voucher-cache.ttl-seconds}; unknown codes
+ * are cached as absent for the much shorter
+ * {@code vres.voucher-cache.negative-ttl-seconds}. Entries are invalidated when
+ * a voucher is redeemed, when vouchers are issued (dropping negative entries
+ * for the new codes) and when a project's validity window changes. A stale
+ * ISSUED entry is harmless: redemption itself is a conditional UPDATE.
+ * Statistics are published as {@code cache.*{cache=vres.voucher.codes}}.
+ */
+@Component
+public class VoucherCodeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VoucherCodeCache.class);
+
+    @Autowired
+    private VouchersRepository vouchersRepository;
+
+    @Autowired
+    private CodeGeneratorService codeGeneratorService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${vres.voucher-cache.max-entries:100000}")
+    private long maxEntries;
+
+    @Value("${vres.voucher-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${vres.voucher-cache.negative-ttl-seconds:30}")
+    private long negativeTtlSeconds;
+
+    private Cache<String, Optional<RedemptionView>> cache;
+
+    @PostConstruct
+    void init() {
+        long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        long negativeTtlNanos = TimeUnit.SECONDS.toNanos(negativeTtlSeconds);
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, Optional<RedemptionView>>() {
+                    @Override
+                    public long expireAfterCreate(String code, Optional<RedemptionView> view, long currentTime) {
+                        return view.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String code, Optional<RedemptionView> view, long currentTime, long currentDuration) {
+                        return expireAfterCreate(code, view, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String code, Optional<RedemptionView> view, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "vres.voucher.codes");
+        logger.info("Voucher code cache initialized (max {} entries, ttl {}s, negative ttl {}s)", maxEntries, ttlSeconds, negativeTtlSeconds);
+    }
+
+    /**
+     * Looks the code up. A code whose check character does not match is
+     * unknown without a query, and is not cached.
+     */
+    public Optional<RedemptionView> get(String voucherCode) {
+        String code = CodeGeneratorService.normalize(voucherCode);
+        if (code == null || !codeGeneratorService.hasValidCheckCharacter(code)) {
+            return Optional.empty();
+        }
+        return cache.get(code, vouchersRepository::findRedemptionView);
+    }
+
+    /**
+     * Drops the cached entry for the code. Inside a transaction it is dropped
+     * again after commit, so a lookup racing the transaction cannot re-cache the
+     * pre-commit state.
+     */
+    public void invalidate(String voucherCode) {
+        String code = CodeGeneratorService.normalize(voucherCode);
+        if (code == null) {
+            return;
+        }
+        cache.invalidate(code);
+        afterCompletion(() -> cache.invalidate(code));
+    }
+
+    public void invalidateAll(Collection<String> voucherCodes) {
+        List<String> codes = voucherCodes.stream().map(CodeGeneratorService::normalize).filter(Objects::nonNull).toList();
+        cache.invalidateAll(codes);
+        afterCompletion(() -> cache.invalidateAll(codes));
+    }
+
+    // Validity window changes: a scan, but only on the rare project update
+    public void invalidateProject(int projectId) {
+        cache.asMap().values().removeIf(view -> view.isPresent() && view.get().getProjectId() == projectId);
+        afterCompletion(() -> cache.asMap().values().removeIf(view -> view.isPresent() && view.get().getProjectId() == projectId));
+        logger.debug("Voucher code cache invalidated for project ID {}", projectId);
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
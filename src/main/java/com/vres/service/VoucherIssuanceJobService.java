@@ -0,0 +1,228 @@
+package com.vres.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.vres.dto.IssuanceJobDto;
+import com.vres.entity.Beneficiaries;
+import com.vres.entity.IssuanceJobs;
+import com.vres.entity.Projects;
+import com.vres.repository.BeneficiariesRepository;
+import com.vres.repository.IssuanceJobsRepository;
+import com.vres.repository.ProjectsRepository;
+import com.vres.repository.VouchersRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Runs voucher issuance as persisted background jobs.
+ * <p>
+ * A job works through its beneficiaries in chunks. Each chunk goes through
+ * {@link VoucherIssuancePipeline}, whose inserts commit per batch, and the job
+ * row is updated after every chunk. Beneficiaries that already hold a voucher
+ * in the project are skipped, so a job that was interrupted by a crash or
+ * restart picks up where it stopped when it is resumed at startup. That
+ * check is only a shortcut: two jobs over overlapping beneficiaries can both
+ * pass it, and the vouchers' unique (project, beneficiary) key is what stops
+ * the second one from issuing again (its duplicates are reported as failed).
+ * <p>
+ * Jobs are resumed by whichever instance starts up; the runner assumes a
+ * single application instance drives issuance.
+ */
+@Service
+public class VoucherIssuanceJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VoucherIssuanceJobService.class);
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    @Autowired private IssuanceJobsRepository issuanceJobsRepository;
+    @Autowired private ProjectsRepository projectsRepository;
+    @Autowired private BeneficiariesRepository beneficiariesRepository;
+    @Autowired private VouchersRepository vouchersRepository;
+    @Autowired private VoucherIssuancePipeline voucherIssuancePipeline;
+
+    @Value("${vres.issuance.job-threads:1}")
+    private int jobThreads;
+
+    @Value("${vres.issuance.job-chunk-size:1000}")
+    private int chunkSize;
+
+    private ExecutorService jobExecutor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger counter = new AtomicInteger();
+        jobExecutor = Executors.newFixedThreadPool(jobThreads, r -> {
+            Thread t = new Thread(r, "vres-issuance-job-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        jobExecutor.shutdownNow();
+    }
+
+    /**
+     * Resumes jobs left QUEUED or RUNNING by a previous run of the application.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        List<IssuanceJobs> unfinished = issuanceJobsRepository.findByStatusInOrderByIdAsc(List.of(QUEUED, RUNNING));
+        for (IssuanceJobs job : unfinished) {
+            logger.info("Resuming voucher issuance job {} for project ID {} ({}/{} issued)",
+                    job.getId(), job.getProjectId(), job.getIssued(), job.getTotal());
+            enqueue(job.getId());
+        }
+    }
+
+    /**
+     * Persists a new job for the given beneficiaries and schedules it. Returns immediately.
+     */
+    public IssuanceJobDto submit(int projectId, List<Integer> beneficiaryIds) {
+        IssuanceJobs job = new IssuanceJobs();
+        job.setProjectId(projectId);
+        job.setStatus(QUEUED);
+        job.setBeneficiaryIds(beneficiaryIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        job.setTotal(beneficiaryIds.size());
+        job.setCreatedAt(LocalDateTime.now());
+        job = issuanceJobsRepository.save(job);
+        logger.info("Queued voucher issuance job {} for {} beneficiaries in project ID {}", job.getId(), job.getTotal(), projectId);
+        enqueue(job.getId());
+        return toDto(job);
+    }
+
+    public IssuanceJobDto getJob(int projectId, int jobId) {
+        IssuanceJobs job = issuanceJobsRepository.findByIdAndProjectId(jobId, projectId)
+                .orElseThrow(() -> new EntityNotFoundException("Issuance job " + jobId + " not found for project " + projectId));
+        return toDto(job);
+    }
+
+    private void enqueue(int jobId) {
+        jobExecutor.execute(() -> {
+            try {
+                run(jobId);
+            } catch (Exception e) {
+                logger.error("Voucher issuance job {} failed: {}", jobId, e.getMessage(), e);
+                issuanceJobsRepository.findById(jobId).ifPresent(job -> {
+                    job.setStatus(FAILED);
+                    job.setLastError(e.getMessage());
+                    job.setFinishedAt(LocalDateTime.now());
+                    job.setUpdatedAt(job.getFinishedAt());
+                    issuanceJobsRepository.save(job);
+                });
+            }
+        });
+    }
+
+    private void run(int jobId) {
+        IssuanceJobs job = issuanceJobsRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Issuance job not found with id: " + jobId));
+        Projects project = projectsRepository.findById(job.getProjectId())
+                .orElseThrow(() -> new EntityNotFoundException("Project not found with id: " + job.getProjectId()));
+
+        List<Integer> ids = parseIds(job.getBeneficiaryIds());
+
+        // Checkpoint: anything that already has a voucher was issued by an earlier attempt
+        Set<Integer> alreadyIssued = new HashSet<>();
+        for (List<Integer> chunk : chunks(ids)) {
+            alreadyIssued.addAll(vouchersRepository.findIssuedBeneficiaryIds(project.getId(), chunk));
+        }
+        List<Integer> remaining = ids.stream().filter(id -> !alreadyIssued.contains(id)).collect(Collectors.toList());
+
+        job.setStatus(RUNNING);
+        job.setIssued(alreadyIssued.size());
+        job.setIssuedAtStart(alreadyIssued.size());
+        job.setFailed(0);
+        job.setLastError(null);
+        job.setStartedAt(LocalDateTime.now());
+        job.setUpdatedAt(job.getStartedAt());
+        issuanceJobsRepository.save(job);
+
+        for (List<Integer> chunk : chunks(remaining)) {
+            List<Beneficiaries> beneficiaries = beneficiariesRepository.findAllById(chunk);
+            VoucherIssuancePipeline.IssuanceReport report = voucherIssuancePipeline.issue(project, beneficiaries);
+
+            job.setIssued(job.getIssued() + report.getIssued());
+            job.setFailed(job.getFailed() + report.getFailed() + (chunk.size() - beneficiaries.size()));
+            job.setUpdatedAt(LocalDateTime.now());
+            issuanceJobsRepository.save(job);
+            logger.info("Issuance job {} progress: {}/{} issued, {} failed", jobId, job.getIssued(), job.getTotal(), job.getFailed());
+        }
+
+        job.setStatus(COMPLETED);
+        job.setFinishedAt(LocalDateTime.now());
+        job.setUpdatedAt(job.getFinishedAt());
+        issuanceJobsRepository.save(job);
+        logger.info("Issuance job {} completed for project ID {}. Issued: {}, Failed: {}",
+                jobId, project.getId(), job.getIssued(), job.getFailed());
+    }
+
+    private List<List<Integer>> chunks(List<Integer> ids) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunks.add(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        }
+        return chunks;
+    }
+
+    private static List<Integer> parseIds(String csv) {
+        if (csv == null || csv.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(csv.split(",")).map(String::trim).map(Integer::valueOf).collect(Collectors.toList());
+    }
+
+    private IssuanceJobDto toDto(IssuanceJobs job) {
+        IssuanceJobDto dto = new IssuanceJobDto();
+        dto.setJobId(job.getId());
+        dto.setProjectId(job.getProjectId());
+        dto.setStatus(job.getStatus());
+        dto.setTotal(job.getTotal());
+        dto.setIssued(job.getIssued());
+        dto.setFailed(job.getFailed());
+        dto.setRemaining(Math.max(0, job.getTotal() - job.getIssued() - job.getFailed()));
+        dto.setLastError(job.getLastError());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+
+        if (job.getStartedAt() != null) {
+            LocalDateTime until = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+            double seconds = Duration.between(job.getStartedAt(), until).toMillis() / 1000.0;
+            int processedThisAttempt = job.getIssued() - job.getIssuedAtStart() + job.getFailed();
+            if (seconds > 0 && processedThisAttempt > 0) {
+                double rate = processedThisAttempt / seconds;
+                dto.setRatePerSecond(rate);
+                if (RUNNING.equals(job.getStatus())) {
+                    dto.setEtaSeconds((long) Math.ceil(dto.getRemaining() / rate));
+                }
+            }
+        }
+        return dto;
+    }
+}
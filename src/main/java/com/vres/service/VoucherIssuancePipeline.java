@@ -0,0 +1,584 @@
+package com.vres.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.vres.entity.Beneficiaries;
+import com.vres.entity.Projects;
+import com.vres.entity.Vouchers;
+import com.vres.generator.CodeGeneratorService;
+import com.vres.generator.QRCodeGenerator;
+import com.vres.generator.QRCodeRenderer;
+import com.vres.repository.JdbcBatchWriter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Staged voucher issuance pipeline.
+ * <p>
+ * Every voucher moves through five stages: code generation, QR rendering,
+ * object upload, batched persistence and SMS dispatch. Each stage runs on its
+ * own bounded executor. When a stage's queue is full the submitting thread
+ * blocks, so a slow downstream stage (S3, Brevo) throttles the stages that
+ * feed it instead of letting rendered images pile up in memory.
+ * <p>
+ * With {@code vres.issuance.qr-mode=lazy} the render and upload stages are
+ * skipped; the QR is materialized from the voucher code the first time it is
+ * requested (see {@link VoucherService#getQrCodeImage}).
+ * <p>
+ * Every item is settled exactly once, as issued or failed. A stage task that
+ * throws unexpectedly fails the items it still holds, a task the stage
+ * rejects fails its items on the spot, and a run that has not settled within
+ * {@code vres.issuance.run-timeout-minutes} fails whatever is left, so
+ * {@link #issue} always returns or throws.
+ */
+@Component
+public class VoucherIssuancePipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(VoucherIssuancePipeline.class);
+
+    @Autowired private CodeGeneratorService codeGeneratorService;
+    @Autowired private S3Service s3Service;
+    @Autowired private BrevoSmsService brevoSmsService;
+    @Autowired private StageTimer stageTimer;
+    @Autowired private VoucherCodeCache voucherCodeCache;
+    @Autowired private JdbcBatchWriter jdbcBatchWriter;
+    @Autowired private VoucherService voucherService;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+
+    // eager: render and upload every QR during issuance; lazy: skip both, the QR is rendered on first fetch
+    @Value("${vres.issuance.qr-mode:eager}")
+    private String qrMode;
+
+    // 0 = one render thread per available core
+    @Value("${vres.issuance.render-threads:0}")
+    private int renderThreads;
+
+    @Value("${vres.issuance.upload-threads:16}")
+    private int uploadThreads;
+
+    @Value("${vres.issuance.persist-threads:2}")
+    private int persistThreads;
+
+    @Value("${vres.issuance.sms-threads:8}")
+    private int smsThreads;
+
+    @Value("${vres.issuance.queue-capacity:512}")
+    private int queueCapacity;
+
+    @Value("${vres.issuance.code-batch-size:200}")
+    private int codeBatchSize;
+
+    @Value("${vres.issuance.persist-batch-size:200}")
+    private int persistBatchSize;
+
+    @Value("${vres.issuance.run-timeout-minutes:30}")
+    private long runTimeoutMinutes;
+
+    private Stage codeStage;
+    private Stage renderStage;
+    private Stage uploadStage;
+    private Stage persistStage;
+    private Stage smsStage;
+
+    @PostConstruct
+    void start() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        codeStage = new Stage("code", 1, queueCapacity);
+        renderStage = new Stage("render", renderThreads > 0 ? renderThreads : cores, queueCapacity);
+        uploadStage = new Stage("upload", uploadThreads, queueCapacity);
+        persistStage = new Stage("persist", persistThreads, queueCapacity);
+        smsStage = new Stage("sms", smsThreads, queueCapacity);
+        logger.info("Voucher issuance pipeline started (qr-mode={}, render={}, upload={}, persist={}, sms={}, queue={})",
+                qrMode, renderStage.threads(), uploadThreads, persistThreads, smsThreads, queueCapacity);
+    }
+
+    @PreDestroy
+    void stop() {
+        for (Stage stage : List.of(codeStage, renderStage, uploadStage, persistStage, smsStage)) {
+            stage.executor.shutdown();
+        }
+    }
+
+    /**
+     * Issues one voucher per beneficiary and blocks until every voucher has
+     * either been sent or failed. Vouchers are persisted in batches, each
+     * batch committing on its own, so a failure late in the run does not
+     * undo vouchers that were already issued.
+     *
+     * @throws IllegalStateException if the run does not settle within the run timeout;
+     *         the unsettled vouchers are counted as failed and the run is cancelled,
+     *         so the stages do no further work on them
+     */
+    public IssuanceReport issue(Projects project, List<Beneficiaries> beneficiaries) {
+        Run run = new Run(project, beneficiaries);
+        if (beneficiaries.isEmpty()) {
+            return run.report();
+        }
+        for (int from = 0; from < run.items.size(); from += codeBatchSize) {
+            List<IssuanceItem> slice = run.items.subList(from, Math.min(from + codeBatchSize, run.items.size()));
+            codeStage.submit(run, slice, () -> generateCodes(run, slice));
+        }
+        run.await(runTimeoutMinutes);
+        IssuanceReport report = run.report();
+        logger.info("Issuance pipeline finished for project ID {}: {}", project.getId(), report);
+        return report;
+    }
+
+    // ===================== Stages =====================
+
+    private void generateCodes(Run run, List<IssuanceItem> slice) {
+        List<String> codes;
+        try {
+            // One uniqueness query per slice; codes already handed out in this run are excluded too
+            codes = stageTimer.record(StageTimer.ISSUANCE, "code_allocate",
+                    () -> codeGeneratorService.allocateCodes(slice.size(), run.claimedCodes));
+            run.claimedCodes.addAll(codes);
+            run.stats("code").processed.add(codes.size());
+        } catch (Exception e) {
+            for (IssuanceItem item : slice) {
+                run.fail(item, "code", e);
+            }
+            return;
+        }
+        boolean lazy = "lazy".equalsIgnoreCase(qrMode);
+        for (int i = 0; i < slice.size(); i++) {
+            IssuanceItem item = slice.get(i);
+            item.code = codes.get(i);
+            if (lazy) {
+                run.bufferForPersist(item);
+            } else {
+                renderStage.submit(run, List.of(item), () -> render(run, item));
+            }
+        }
+    }
+
+    private void render(Run run, IssuanceItem item) {
+        long start = System.nanoTime();
+        try {
+            item.qrBytes = QRCodeGenerator.generateQRCodeImage(item.code, QRCodeRenderer.VOUCHER_QR_SIZE, QRCodeRenderer.VOUCHER_QR_SIZE);
+            stageTimer.record(StageTimer.ISSUANCE, "qr_render", true, System.nanoTime() - start);
+            run.stats("render").processed.increment();
+        } catch (Exception e) {
+            stageTimer.record(StageTimer.ISSUANCE, "qr_render", false, System.nanoTime() - start);
+            run.fail(item, "render", e);
+            return;
+        }
+        uploadStage.submit(run, List.of(item), () -> upload(run, item));
+    }
+
+    private void upload(Run run, IssuanceItem item) {
+        try {
+            item.qrKey = stageTimer.record(StageTimer.ISSUANCE, "s3_upload", () -> s3Service.uploadQRCode(item.qrBytes, item.code));
+            item.qrBytes = null; // the image is no longer needed once it is stored
+            run.stats("upload").processed.increment();
+        } catch (Exception e) {
+            run.fail(item, "upload", e);
+            return;
+        }
+        run.bufferForPersist(item);
+    }
+
+    private void persist(Run run, List<IssuanceItem> pending) {
+        // Items failed by a run timeout while queued must not be stored after the fact
+        List<IssuanceItem> batch = pending.stream().filter(item -> !item.settled.get()).toList();
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Vouchers> vouchers = new ArrayList<>(batch.size());
+        for (IssuanceItem item : batch) {
+            vouchers.add(toVoucher(run.project, item));
+        }
+        List<IssuanceItem> persisted = new ArrayList<>(batch.size());
+        Set<String> inserted;
+        try {
+            inserted = stageTimer.record(StageTimer.ISSUANCE, "persist_batch", () -> jdbcBatchWriter.insertVouchers(vouchers));
+        } catch (Exception batchFailure) {
+            // Fall back to row-by-row saves so one bad row does not fail the whole batch
+            logger.warn("Batch save of {} vouchers failed, retrying individually: {}", batch.size(), batchFailure.getMessage());
+            inserted = new HashSet<>();
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    inserted.addAll(jdbcBatchWriter.insertVouchers(List.of(toVoucher(run.project, batch.get(i)))));
+                } catch (Exception e) {
+                    run.fail(batch.get(i), "persist", e);
+                }
+            }
+        }
+        for (IssuanceItem item : batch) {
+            if (inserted.contains(item.code)) {
+                persisted.add(item);
+            } else {
+                // Skipped by the unique key: another job issued this beneficiary's voucher first
+                run.fail(item, "persist", new IllegalStateException("Beneficiary already holds a voucher in this project."));
+            }
+        }
+        run.stats("persist").processed.add(persisted.size());
+        // The vouchers are stored at this point; stale caches must not fail them
+        try {
+            // Drop any negative entries cached for these codes before they existed
+            voucherCodeCache.invalidateAll(persisted.stream().map(item -> item.code).toList());
+            if (!persisted.isEmpty()) {
+                eventPublisher.publishEvent(new ProjectDataChangedEvent(run.project.getId()));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Cache invalidation after persisting {} vouchers for project ID {} failed: {}",
+                    persisted.size(), run.project.getId(), e.getMessage(), e);
+        }
+        for (IssuanceItem item : persisted) {
+            String phone = item.beneficiary.getPhone();
+            if (phone != null && phone.startsWith("+")) {
+                smsStage.submit(run, List.of(item), () -> sendSms(run, item));
+            } else {
+                logger.warn("Skipped sending SMS for voucher {} due to invalid phone number.", item.code);
+                run.complete(item);
+            }
+        }
+    }
+
+    private void sendSms(Run run, IssuanceItem item) {
+        if (item.settled.get()) {
+            return;
+        }
+        try {
+            Projects project = run.project;
+            // Stable link; the endpoint redirects to a fresh presigned URL or renders the image
+            String qrLink = voucherService.getPublicQrLink(item.code);
+            stageTimer.record(StageTimer.ISSUANCE, "brevo_sms", () -> brevoSmsService.sendVoucherSms(
+                    item.beneficiary.getPhone(),
+                    item.code,
+                    qrLink,
+                    project.getVoucher_valid_from(),
+                    project.getVoucher_valid_till(),
+                    project.getVoucher_points(),
+                    project.getTitle()));
+            run.stats("sms").processed.increment();
+        } catch (Exception e) {
+            // The voucher is already stored, so a failed SMS does not fail the voucher
+            run.stats("sms").failed.increment();
+            logger.error("Failed to send voucher SMS for {}: {}", item.code, e.getMessage());
+        }
+        run.complete(item);
+    }
+
+    private Vouchers toVoucher(Projects project, IssuanceItem item) {
+        Vouchers voucher = new Vouchers();
+        voucher.setProject(project);
+        voucher.setBeneficiary(item.beneficiary);
+        voucher.setStatus("ISSUED");
+        voucher.setStringCode(item.code);
+        voucher.setQrCodeLink(item.qrKey);
+        voucher.setIssuedAt(LocalDate.now());
+        return voucher;
+    }
+
+    // ===================== Run state =====================
+
+    private static final class IssuanceItem {
+        final Beneficiaries beneficiary;
+        final AtomicBoolean settled = new AtomicBoolean();
+        // The stage currently responsible for the item; set before it is handed over
+        volatile String stage;
+        volatile boolean reachedPersist;
+        String code;
+        byte[] qrBytes;
+        String qrKey;
+
+        IssuanceItem(Beneficiaries beneficiary) {
+            this.beneficiary = beneficiary;
+        }
+    }
+
+    /**
+     * State of a single {@link #issue} call. Stage executors are shared
+     * between runs; everything that belongs to one run lives here.
+     */
+    private final class Run {
+        final Projects project;
+        final List<IssuanceItem> items;
+        final int total;
+        final CountDownLatch done;
+        // Only touched by the single code-generation thread
+        final Set<String> claimedCodes = new HashSet<>();
+        final Map<String, StageStats> stats = new LinkedHashMap<>();
+        final AtomicInteger reachedPersist = new AtomicInteger();
+        final AtomicInteger issued = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final long startedAt = System.nanoTime();
+        // Set once the run has given up waiting; queued stage tasks of the run are then skipped
+        volatile boolean cancelled;
+        private List<IssuanceItem> buffer = new ArrayList<>();
+
+        Run(Projects project, List<Beneficiaries> beneficiaries) {
+            this.project = project;
+            this.items = new ArrayList<>(beneficiaries.size());
+            for (Beneficiaries beneficiary : beneficiaries) {
+                items.add(new IssuanceItem(beneficiary));
+            }
+            this.total = items.size();
+            this.done = new CountDownLatch(total);
+            for (String stage : List.of("code", "render", "upload", "persist", "sms")) {
+                stats.put(stage, new StageStats(stage));
+            }
+        }
+
+        StageStats stats(String stage) {
+            return stats.get(stage);
+        }
+
+        void bufferForPersist(IssuanceItem item) {
+            item.stage = "persist";
+            item.reachedPersist = true;
+            List<IssuanceItem> ready = null;
+            synchronized (this) {
+                buffer.add(item);
+                if (buffer.size() >= persistBatchSize) {
+                    ready = buffer;
+                    buffer = new ArrayList<>();
+                }
+            }
+            dispatch(ready);
+            arrivedAtPersist();
+        }
+
+        // Called once per item that will never reach the persist buffer
+        private void skippedPersist() {
+            arrivedAtPersist();
+        }
+
+        private void arrivedAtPersist() {
+            if (reachedPersist.incrementAndGet() == total) {
+                List<IssuanceItem> rest;
+                synchronized (this) {
+                    rest = buffer;
+                    buffer = new ArrayList<>();
+                }
+                dispatch(rest);
+            }
+        }
+
+        private void dispatch(List<IssuanceItem> batch) {
+            if (batch != null && !batch.isEmpty()) {
+                persistStage.submit(this, batch, () -> persist(this, batch));
+            }
+        }
+
+        // No-op for an item that is already settled
+        void fail(IssuanceItem item, String stage, Throwable e) {
+            if (!item.settled.compareAndSet(false, true)) {
+                return;
+            }
+            StageStats stageStats = stats(stage);
+            if (stageStats != null) {
+                stageStats.failed.increment();
+            }
+            failed.incrementAndGet();
+            logger.error("Voucher issuance failed at stage '{}' for beneficiary ID {}: {}",
+                    stage, item.beneficiary.getId(), e.getMessage());
+            if (!item.reachedPersist) {
+                skippedPersist();
+            }
+            done.countDown();
+        }
+
+        void complete(IssuanceItem item) {
+            if (item.settled.compareAndSet(false, true)) {
+                issued.incrementAndGet();
+                done.countDown();
+            }
+        }
+
+        void await(long timeoutMinutes) {
+            try {
+                if (done.await(timeoutMinutes, TimeUnit.MINUTES)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failUnsettled(new IllegalStateException("Voucher issuance was interrupted."));
+                throw new IllegalStateException("Voucher issuance was interrupted.", e);
+            }
+            IllegalStateException timeout = new IllegalStateException(
+                    "Voucher issuance for project ID " + project.getId() + " did not finish within " + timeoutMinutes + " minutes.");
+            failUnsettled(timeout);
+            throw timeout;
+        }
+
+        // Late completions of these items become no-ops
+        private void failUnsettled(Exception cause) {
+            cancelled = true;
+            for (IssuanceItem item : items) {
+                String stage = item.stage;
+                fail(item, stage != null ? stage : "code", cause);
+            }
+        }
+
+        IssuanceReport report() {
+            return new IssuanceReport(total, issued.get(), failed.get(),
+                    System.nanoTime() - startedAt, new ArrayList<>(stats.values()));
+        }
+    }
+
+    // ===================== Executors =====================
+
+    /**
+     * A fixed-size executor with a bounded queue. Submitting to a full stage
+     * blocks the caller until a slot frees up, which is what propagates
+     * backpressure up the pipeline.
+     */
+    private static final class Stage {
+        final String name;
+        final ThreadPoolExecutor executor;
+
+        Stage(String name, int threads, int capacity) {
+            this.name = name;
+            AtomicInteger counter = new AtomicInteger();
+            ThreadFactory factory = r -> {
+                Thread t = new Thread(r, "vres-issuance-" + name + "-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            };
+            this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(capacity), factory, (task, pool) -> {
+                        if (pool.isShutdown()) {
+                            throw new RejectedExecutionException("Issuance stage '" + name + "' is shut down.");
+                        }
+                        try {
+                            pool.getQueue().put(task);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException("Interrupted while waiting for stage '" + name + "'.", e);
+                        }
+                    });
+        }
+
+        int threads() {
+            return executor.getMaximumPoolSize();
+        }
+
+        /**
+         * Hands {@code items} to this stage. If {@code work} throws, the items it
+         * has not passed on to a later stage are failed here; if the stage rejects
+         * the task (shutdown, interrupt), all of them are. Tasks of a cancelled run
+         * are dropped without running.
+         */
+        void submit(Run run, List<IssuanceItem> items, Runnable work) {
+            StageStats stats = run.stats(name);
+            for (IssuanceItem item : items) {
+                item.stage = name;
+            }
+            try {
+                executor.execute(() -> {
+                    if (run.cancelled) {
+                        return;
+                    }
+                    long start = System.nanoTime();
+                    stats.firstStart.compareAndSet(0L, start);
+                    try {
+                        work.run();
+                    } catch (Throwable t) {
+                        for (IssuanceItem item : items) {
+                            if (name.equals(item.stage)) {
+                                run.fail(item, name, t);
+                            }
+                        }
+                    } finally {
+                        long end = System.nanoTime();
+                        stats.busyNanos.add(end - start);
+                        stats.lastEnd.accumulateAndGet(end, Math::max);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                for (IssuanceItem item : items) {
+                    run.fail(item, name, e);
+                }
+            }
+        }
+    }
+
+    // ===================== Reporting =====================
+
+    /**
+     * Per-stage counters for one run. Throughput is measured over the
+     * stage's active window (first task start to last task end), so a
+     * stage that waited on its upstream is not penalised for the wait.
+     */
+    public static final class StageStats {
+        private final String stage;
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private final AtomicLong firstStart = new AtomicLong();
+        private final AtomicLong lastEnd = new AtomicLong();
+
+        StageStats(String stage) {
+            this.stage = stage;
+        }
+
+        public String getStage() { return stage; }
+        public long getProcessed() { return processed.sum(); }
+        public long getFailed() { return failed.sum(); }
+        public long getBusyMillis() { return TimeUnit.NANOSECONDS.toMillis(busyNanos.sum()); }
+
+        public double getThroughputPerSecond() {
+            long window = lastEnd.get() - firstStart.get();
+            return window > 0 ? processed.sum() * 1_000_000_000.0 / window : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s=%d ok/%d failed @ %.1f/s", stage, getProcessed(), getFailed(), getThroughputPerSecond());
+        }
+    }
+
+    public static final class IssuanceReport {
+        private final int total;
+        private final int issued;
+        private final int failed;
+        private final long elapsedNanos;
+        private final List<StageStats> stages;
+
+        IssuanceReport(int total, int issued, int failed, long elapsedNanos, List<StageStats> stages) {
+            this.total = total;
+            this.issued = issued;
+            this.failed = failed;
+            this.elapsedNanos = elapsedNanos;
+            this.stages = stages;
+        }
+
+        public int getTotal() { return total; }
+        public int getIssued() { return issued; }
+        public int getFailed() { return failed; }
+        public long getElapsedMillis() { return TimeUnit.NANOSECONDS.toMillis(elapsedNanos); }
+        public List<StageStats> getStages() { return stages; }
+
+        @Override
+        public String toString() {
+            return String.format("total=%d, issued=%d, failed=%d, elapsed=%dms, stages=%s",
+                    total, issued, failed, getElapsedMillis(), stages);
+        }
+    }
+}
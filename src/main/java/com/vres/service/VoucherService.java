@@ -1,19 +1,23 @@
 package com.vres.service;
 
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Collections;
-import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // Import Transactional
 
+import com.vres.dto.QrImageDto;
 import com.vres.entity.Vouchers;
+import com.vres.generator.QRCodeRenderer;
+import com.vres.otp.OtpStore;
 import com.vres.repository.VouchersRepository;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -32,6 +36,23 @@ public class VoucherService {
     @Autowired
     private OtpService otpService; // Assuming OtpService is correctly configured
 
+    @Autowired
+    private QrImageCache qrImageCache;
+
+    @Autowired
+    private OtpStore otpStore;
+
+    @Value("${otp.validity.minutes:5}")
+    private long otpValidityMinutes;
+
+    // Base URL beneficiaries use to reach the public QR endpoint (links sent by SMS)
+    @Value("${vres.public-base-url:http://localhost:8080}")
+    private String publicBaseUrl;
+
+    // Upload QR codes rendered on demand so later fetches are served from S3
+    @Value("${vres.qr.write-back:false}")
+    private boolean qrWriteBack;
+
     /**
      * Validates the voucher before performing critical operations.
      * Checks status, project link, and validity dates.
@@ -72,7 +93,8 @@ public class VoucherService {
     }
 
     /**
-     * Returns the QR code link of a voucher if valid.
+     * Returns the QR code link of a voucher if valid. This is the stable public
+     * QR endpoint; vouchers only store the object key.
      * Marked as read-only transaction.
      */
     @Transactional(readOnly = true) // Read operation
@@ -84,7 +106,16 @@ public class VoucherService {
         // Validation happens internally, throws exception if invalid
         validateVoucher(voucher);
         logger.debug("QR link found for voucher ID {}: {}", voucherId, voucher.getQrCodeLink());
-        return voucher.getQrCodeLink();
+        return getPublicQrLink(voucher.getStringCode());
+    }
+
+    /**
+     * Link to the public QR endpoint for a voucher code. Unlike a presigned URL
+     * it never expires, so it is what goes into the SMS and voucher listings.
+     */
+    public String getPublicQrLink(String stringCode) {
+        String base = publicBaseUrl.endsWith("/") ? publicBaseUrl.substring(0, publicBaseUrl.length() - 1) : publicBaseUrl;
+        return base + "/vres/qr/" + stringCode;
     }
 
     /**
@@ -103,40 +134,86 @@ public class VoucherService {
     }
 
     /**
-     * Fetches the QR code image bytes from S3 if the voucher is valid.
-     * Marked as read-only transaction regarding DB access.
+     * Returns the QR code image if the voucher is valid. Images are served from
+     * {@link QrImageCache}; on a miss they are fetched from S3, or rendered from
+     * the string code for vouchers issued without an uploaded image (optionally
+     * written back to S3, which updates the voucher's link).
      */
-    @Transactional(readOnly = true) // Read operation (for voucher lookup)
-    public byte[] getQrCodeImageBytes(Integer voucherId) {
-        logger.info("Fetching QR code image bytes for voucher ID: {}", voucherId);
+    @Transactional // May write back the QR link
+    public QrImageDto getQrCodeImage(Integer voucherId) {
+        logger.info("Fetching QR code image for voucher ID: {}", voucherId);
         Vouchers voucher = vouchersRepository.findById(voucherId)
                 .orElseThrow(() -> new EntityNotFoundException("Voucher not found with ID: " + voucherId));
 
         validateVoucher(voucher); // Check voucher validity
+        return qrImageCache.get(voucher.getStringCode(), () -> materializeQrCode(voucher));
+    }
 
+    /**
+     * Backs the public QR endpoint linked from the voucher SMS. Stored images in
+     * a client-reachable store (S3) resolve to a redirect to a freshly signed URL;
+     * everything else is served like {@link #getQrCodeImage(Integer)}.
+     */
+    @Transactional // May write back the QR link
+    public QrImageDto getQrCodeImageByCode(String stringCode) {
+        logger.info("Fetching QR code image for voucher code: {}", stringCode);
+        Vouchers voucher = vouchersRepository.findByStringCode(stringCode)
+                .orElseThrow(() -> new EntityNotFoundException("Voucher not found with code: " + stringCode));
+
+        validateVoucher(voucher);
+        String qrLink = voucher.getQrCodeLink();
+        if (qrLink != null && !qrLink.isBlank()) {
+            String url = s3Service.presignedUrl(qrLink);
+            if (url != null) {
+                return QrImageDto.redirect(url);
+            }
+        }
+        return qrImageCache.get(voucher.getStringCode(), () -> materializeQrCode(voucher));
+    }
+
+    private byte[] materializeQrCode(Vouchers voucher) {
         String qrLink = voucher.getQrCodeLink();
-        if (qrLink == null || qrLink.isBlank()) { // Use isBlank() for better check
-             logger.error("QR code link is missing for voucher ID: {}", voucherId);
-            throw new EntityNotFoundException("QR code link not found for voucher ID: " + voucherId);
+        if (qrLink != null && !qrLink.isBlank()) {
+            try {
+                logger.debug("Downloading QR code from object store: {}", qrLink);
+                byte[] qrBytes = s3Service.downloadFileAsBytes(qrLink);
+                logger.info("Successfully fetched QR code bytes for voucher ID {}", voucher.getId());
+                return qrBytes;
+            } catch (Exception e) {
+                logger.error("Failed to fetch QR code from S3 for voucher ID {}: {}", voucher.getId(), e.getMessage(), e);
+                // Wrap S3 exception in a runtime exception
+                throw new RuntimeException("Failed to fetch QR code from S3 for voucher ID: " + voucher.getId(), e);
+            }
         }
 
+        // Rendering is deterministic for a given code, so nothing needs to be stored to serve it again
+        byte[] qrBytes;
         try {
-             logger.debug("Downloading QR code from S3 link: {}", qrLink);
-            byte[] qrBytes = s3Service.downloadFileAsBytes(qrLink);
-             logger.info("Successfully fetched QR code bytes for voucher ID {}", voucherId);
-             return qrBytes;
+            qrBytes = QRCodeRenderer.renderPng(voucher.getStringCode(), QRCodeRenderer.VOUCHER_QR_SIZE, QRCodeRenderer.VOUCHER_QR_SIZE);
         } catch (Exception e) {
-             logger.error("Failed to fetch QR code from S3 for voucher ID {}: {}", voucherId, e.getMessage(), e);
-            // Wrap S3 exception in a runtime exception
-            throw new RuntimeException("Failed to fetch QR code from S3 for voucher ID: " + voucherId, e);
+            logger.error("Failed to render QR code for voucher ID {}: {}", voucher.getId(), e.getMessage(), e);
+            throw new RuntimeException("Failed to render QR code for voucher ID: " + voucher.getId(), e);
+        }
+        logger.debug("Rendered QR code on demand for voucher ID {}", voucher.getId());
+
+        if (qrWriteBack) {
+            try {
+                voucher.setQrCodeLink(s3Service.uploadQRCode(qrBytes, voucher.getStringCode()));
+                vouchersRepository.save(voucher);
+                logger.info("Wrote back on-demand QR code for voucher ID {}", voucher.getId());
+            } catch (Exception e) {
+                // The rendered image is still good; the next request simply renders it again
+                logger.warn("QR write-back failed for voucher ID {}: {}", voucher.getId(), e.getMessage());
+            }
         }
+        return qrBytes;
     }
 
     /**
-     * Issues a new OTP for a voucher, saves it, and returns the OTP.
-     * This is a write operation, requires a transaction.
+     * Issues a new OTP for a voucher, stores it in the OtpStore, and returns the OTP.
+     * The voucher row itself is only read.
      */
-    @Transactional // Write operation
+    @Transactional(readOnly = true)
     public String issueOtp(Integer voucherId) {
         logger.info("Issuing OTP for voucher ID: {}", voucherId);
         Vouchers voucher = vouchersRepository.findById(voucherId)
@@ -145,10 +222,7 @@ public class VoucherService {
         validateVoucher(voucher); // Ensure voucher is valid before issuing OTP
 
         String otp = otpService.generateOtp();
-        voucher.setRedemptionOtp(otp);
-        voucher.setRedemptionOtpIssuedTime(LocalDateTime.now()); // Record issue time
-
-        vouchersRepository.save(voucher); // Save the updated voucher with OTP
+        otpStore.put(voucher.getStringCode(), otp, Instant.now().plus(otpValidityMinutes, ChronoUnit.MINUTES));
 
         logger.info("OTP issued successfully for voucher ID {}", voucherId);
         // Be cautious about logging the actual OTP value in production environments
@@ -158,28 +232,24 @@ public class VoucherService {
 
     /**
      * Returns the count of vouchers grouped by their status for a given project.
-     * Marked as read-only transaction.
+     * Counted by a GROUP BY in the database, so no voucher rows are loaded.
      */
     @Transactional(readOnly = true) // Read operation
     public Map<String, Long> getVoucherStatusCountByProject(Integer projectId) {
         logger.info("Fetching voucher status count for project ID: {}", projectId);
-        // Find vouchers specifically by project ID for efficiency
-        List<Vouchers> vouchers = vouchersRepository.findByProjectId(projectId);
+        Map<String, Long> statusCount = new HashMap<>();
+        for (Object[] row : vouchersRepository.countByStatusForProject(projectId)) {
+            // Normalize as before: upper-case, null status as "UNKNOWN"
+            String status = row[0] != null ? ((String) row[0]).toUpperCase() : "UNKNOWN";
+            statusCount.merge(status, (Long) row[1], Long::sum);
+        }
 
-        if (vouchers.isEmpty()) {
+        if (statusCount.isEmpty()) {
             logger.info("No vouchers found for project ID: {}", projectId);
-            // Return an empty map instead of Map.of() for consistency if needed
             return Collections.emptyMap();
         }
 
-        // Group by status (convert null status to "UNKNOWN") and count
-        Map<String, Long> statusCount = vouchers.stream()
-                .collect(Collectors.groupingBy(
-                        v -> v.getStatus() != null ? v.getStatus().toUpperCase() : "UNKNOWN", // Handle null status
-                        Collectors.counting()
-                ));
-
         logger.info("Voucher status count calculated for project {}: {}", projectId, statusCount);
         return statusCount;
     }
-}
\ No newline at end of file
+}
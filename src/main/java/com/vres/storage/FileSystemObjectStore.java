@@ -0,0 +1,63 @@
+package com.vres.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Pattern;
+
+/**
+ * {@link ObjectStore} keeping one file per object under a root directory.
+ * Objects are fanned out over 256 subdirectories by key hash so no single
+ * directory grows to millions of entries. Writes go to a temp file that is
+ * then atomically renamed, so readers never see a partial object.
+ */
+public class FileSystemObjectStore implements ObjectStore {
+
+    private static final Pattern VALID_KEY = Pattern.compile("[A-Za-z0-9._-]+");
+
+    private final Path root;
+
+    public FileSystemObjectStore(Path root) throws IOException {
+        this.root = Files.createDirectories(root);
+    }
+
+    @Override
+    public void put(String key, byte[] data, String contentType) {
+        Path target = pathFor(key);
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), ".", ".tmp");
+            try {
+                Files.write(temp, data);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write object " + key, e);
+        }
+    }
+
+    @Override
+    public byte[] get(String key) {
+        try {
+            return Files.readAllBytes(pathFor(key));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read object " + key, e);
+        }
+    }
+
+    private Path pathFor(String key) {
+        // Also rules out path traversal through the key
+        if (key.startsWith(".") || !VALID_KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid object key: " + key);
+        }
+        String shard = String.format("%02x", key.hashCode() & 0xFF);
+        return root.resolve(shard).resolve(key);
+    }
+}
@@ -0,0 +1,232 @@
+package com.vres.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ObjectStore} that packs objects into large, memory-mapped,
+ * append-only segment files.
+ * <p>
+ * Each record is laid out as
+ * {@code [magic:int][keyLength:short][dataLength:int][crc32:int][key][data]}.
+ * The magic number is written last, so a record torn by a crash is either
+ * invisible or fails its CRC, and is overwritten by the next append. The
+ * key-to-location index lives in memory and is rebuilt by scanning the segments
+ * on startup; a key written twice resolves to its latest record.
+ * <p>
+ * Appends are serialized; reads are lock-free copies out of the mapped buffers.
+ * Objects are never deleted, which suits write-once QR images.
+ */
+public class MappedSegmentObjectStore implements ObjectStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedSegmentObjectStore.class);
+
+    private static final int RECORD_MAGIC = 0x56524553; // "VRES"
+    private static final int HEADER_BYTES = 4 + 2 + 4 + 4;
+    private static final Pattern SEGMENT_FILE = Pattern.compile("segment-(\\d+)\\.dat");
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean sync;
+
+    // Segment id is the position in this list
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<String, Location> index = new ConcurrentHashMap<>();
+
+    private final Object appendLock = new Object();
+    private int writeOffset; // in the last segment, guarded by appendLock
+
+    public MappedSegmentObjectStore(Path directory, int segmentBytes, boolean sync) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.sync = sync;
+
+        List<Path> existing = listSegments();
+        for (int id = 0; id < existing.size(); id++) {
+            MappedByteBuffer buffer = map(existing.get(id), 0);
+            segments.add(buffer);
+            writeOffset = scan(id, buffer);
+        }
+        if (segments.isEmpty()) {
+            segments.add(map(segmentPath(0), segmentBytes));
+            writeOffset = 0;
+        }
+        logger.info("Opened segment store at {}: {} segment(s), {} object(s)", directory, segments.size(), index.size());
+    }
+
+    @Override
+    public void put(String key, byte[] data, String contentType) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length == 0 || keyBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Invalid object key: " + key);
+        }
+        int recordBytes = HEADER_BYTES + keyBytes.length + data.length;
+        if (recordBytes > segmentBytes) {
+            throw new IllegalArgumentException("Object " + key + " (" + data.length + " bytes) does not fit in a segment");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        synchronized (appendLock) {
+            MappedByteBuffer buffer = segments.get(segments.size() - 1);
+            if (writeOffset + recordBytes > buffer.capacity()) {
+                buffer = roll();
+            }
+            int offset = writeOffset;
+            int dataOffset = offset + HEADER_BYTES + keyBytes.length;
+            int end = offset + recordBytes;
+
+            buffer.putShort(offset + 4, (short) keyBytes.length);
+            buffer.putInt(offset + 6, data.length);
+            buffer.putInt(offset + 10, (int) crc.getValue());
+            buffer.put(offset + HEADER_BYTES, keyBytes);
+            buffer.put(dataOffset, data);
+            // Terminates the scan after this record in case stale bytes follow it
+            if (end + 4 <= buffer.capacity()) {
+                buffer.putInt(end, 0);
+            }
+            buffer.putInt(offset, RECORD_MAGIC);
+            if (sync) {
+                buffer.force(offset, Math.min(recordBytes + 4, buffer.capacity() - offset));
+            }
+
+            writeOffset = end;
+            index.put(key, new Location(segments.size() - 1, dataOffset, data.length));
+        }
+    }
+
+    @Override
+    public byte[] get(String key) {
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        byte[] data = new byte[location.length];
+        segments.get(location.segment).get(location.offset, data);
+        return data;
+    }
+
+    /**
+     * Number of objects currently addressable through the index.
+     */
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public void close() {
+        synchronized (appendLock) {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+    }
+
+    // Flushes the full segment and maps the next one. Called with appendLock held.
+    private MappedByteBuffer roll() {
+        MappedByteBuffer full = segments.get(segments.size() - 1);
+        full.force();
+        try {
+            MappedByteBuffer next = map(segmentPath(segments.size()), segmentBytes);
+            segments.add(next);
+            writeOffset = 0;
+            logger.info("Rolled segment store at {} to segment {}", directory, segments.size() - 1);
+            return next;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create segment " + segments.size() + " in " + directory, e);
+        }
+    }
+
+    // Indexes every intact record in the segment and returns the offset just past the last one
+    private int scan(int segmentId, MappedByteBuffer buffer) {
+        int offset = 0;
+        CRC32 crc = new CRC32();
+        while (offset + HEADER_BYTES <= buffer.capacity() && buffer.getInt(offset) == RECORD_MAGIC) {
+            int keyLength = buffer.getShort(offset + 4) & 0xFFFF;
+            int dataLength = buffer.getInt(offset + 6);
+            int storedCrc = buffer.getInt(offset + 10);
+            int dataOffset = offset + HEADER_BYTES + keyLength;
+            if (dataLength < 0 || dataOffset + (long) dataLength > buffer.capacity()) {
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            buffer.get(offset + HEADER_BYTES, keyBytes);
+            byte[] data = new byte[dataLength];
+            buffer.get(dataOffset, data);
+            crc.reset();
+            crc.update(data);
+            if ((int) crc.getValue() != storedCrc) {
+                logger.warn("Segment {} in {} has a torn record at offset {}; later records are ignored", segmentId, directory, offset);
+                break;
+            }
+            index.put(new String(keyBytes, StandardCharsets.UTF_8), new Location(segmentId, dataOffset, dataLength));
+            offset = dataOffset + dataLength;
+        }
+        return offset;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> SEGMENT_FILE.matcher(p.getFileName().toString()).matches()).forEach(paths::add);
+        }
+        paths.sort((a, b) -> Integer.compare(segmentNumber(a), segmentNumber(b)));
+        for (int i = 0; i < paths.size(); i++) {
+            if (segmentNumber(paths.get(i)) != i) {
+                throw new IllegalStateException("Segment files in " + directory + " are not contiguous: missing segment " + i);
+            }
+        }
+        return paths;
+    }
+
+    private static int segmentNumber(Path path) {
+        Matcher matcher = SEGMENT_FILE.matcher(path.getFileName().toString());
+        matcher.matches();
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    private Path segmentPath(int id) {
+        return directory.resolve(String.format("segment-%06d.dat", id));
+    }
+
+    // Maps the whole file, growing it to minSize first; the mapping outlives the channel
+    private static MappedByteBuffer map(Path path, int minSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = Math.max(channel.size(), minSize);
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Segment " + path + " exceeds 2 GiB");
+            }
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static final class Location {
+        final int segment;
+        final int offset;
+        final int length;
+
+        Location(int segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
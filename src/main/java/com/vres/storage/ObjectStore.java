@@ -0,0 +1,37 @@
+package com.vres.storage;
+
+import java.io.Closeable;
+
+/**
+ * Key/value blob storage for voucher QR images.
+ * <p>
+ * Implementations are selected by {@code vres.object-store.type} (see
+ * {@link com.vres.config.ObjectStoreConfiguration}): {@code s3} (default),
+ * {@code filesystem} or {@code mapped}. Keys are voucher codes, so they are
+ * short and limited to letters, digits, '.', '_' and '-'. Failures surface as
+ * unchecked exceptions.
+ */
+public interface ObjectStore extends Closeable {
+
+    /**
+     * Stores {@code data} under {@code key}, replacing any previous object.
+     */
+    void put(String key, byte[] data, String contentType);
+
+    /**
+     * Returns the object stored under {@code key}, or {@code null} if there is none.
+     */
+    byte[] get(String key);
+
+    /**
+     * Returns a URL clients can fetch the object from directly, or {@code null}
+     * if this store is only reachable through the application.
+     */
+    default String url(String key) {
+        return null;
+    }
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,102 @@
+package com.vres.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.HttpMethod;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import com.amazonaws.services.s3.transfer.Upload;
+
+/**
+ * {@link ObjectStore} backed by an S3 bucket. Uploads go through a
+ * {@link TransferManager}, which splits objects above the multipart threshold
+ * into parts uploaded in parallel on its own thread pool.
+ */
+public class S3ObjectStore implements ObjectStore {
+
+    private final AmazonS3 s3Client;
+    private final TransferManager transferManager;
+    private final String bucketName;
+    private final long presignedUrlDurationMinutes;
+
+    public S3ObjectStore(AmazonS3 s3Client, String bucketName, long presignedUrlDurationMinutes,
+                         long multipartThresholdBytes, int uploadThreads) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.presignedUrlDurationMinutes = presignedUrlDurationMinutes;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.transferManager = TransferManagerBuilder.standard()
+                .withS3Client(s3Client)
+                .withMultipartUploadThreshold(multipartThresholdBytes)
+                .withExecutorFactory(() -> Executors.newFixedThreadPool(uploadThreads, r -> {
+                    Thread t = new Thread(r, "vres-s3-transfer-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }))
+                .build();
+    }
+
+    @Override
+    public void put(String key, byte[] data, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(data.length);
+        metadata.setContentType(contentType);
+
+        Upload upload = transferManager.upload(bucketName, key, new ByteArrayInputStream(data), metadata);
+        try {
+            upload.waitForCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while uploading " + key + " to S3", e);
+        }
+    }
+
+    @Override
+    public byte[] get(String key) {
+        try (S3Object s3Object = s3Client.getObject(bucketName, key);
+             InputStream inputStream = s3Object.getObjectContent()) {
+            return inputStream.readAllBytes();
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                return null;
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to download " + key + " from S3", e);
+        }
+    }
+
+    @Override
+    public String url(String key) {
+        try {
+            Date expiration = new Date(System.currentTimeMillis() + 1000 * 60 * presignedUrlDurationMinutes);
+            GeneratePresignedUrlRequest generatePresignedUrlRequest =
+                    new GeneratePresignedUrlRequest(bucketName, key)
+                            .withMethod(HttpMethod.GET)
+                            .withExpiration(expiration);
+            URL url = s3Client.generatePresignedUrl(generatePresignedUrlRequest);
+            return url.toString();
+        } catch (Exception e) {
+            return s3Client.getUrl(bucketName, key).toString();
+        }
+    }
+
+    @Override
+    public void close() {
+        // Also shuts down the S3 client
+        transferManager.shutdownNow(true);
+    }
+}
@@ -0,0 +1,115 @@
+package com.vres.generator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares allocating a batch of voucher codes with one uniqueness lookup per
+ * round against the old one-lookup-per-code loop.
+ * <p>
+ * The vouchers table is simulated by an in-memory set pre-filled with
+ * {@code existingCodes} entries; every lookup parks for {@code roundTripMicros}
+ * to model the database round trip. Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.vres.generator.CodeAllocationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class CodeAllocationBenchmark {
+
+    @Param({"4", "6"})
+    public int codeLength;
+
+    @Param({"1000"})
+    public int batchSize;
+
+    @Param({"200000"})
+    public int existingCodes;
+
+    @Param({"0", "200"})
+    public long roundTripMicros;
+
+    private Set<String> taken;
+    private CodeGeneratorService generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        taken = new HashSet<>();
+        CodeGeneratorService seeder = new CodeGeneratorService(codeLength, CodeGeneratorService.DEFAULT_CHARACTERS, true, codes -> List.of());
+        while (taken.size() < existingCodes) {
+            taken.add(seeder.randomCode());
+        }
+        generator = new CodeGeneratorService(codeLength, CodeGeneratorService.DEFAULT_CHARACTERS, true, this::lookup);
+    }
+
+    private Collection<String> lookup(Collection<String> codes) {
+        roundTrip();
+        List<String> existing = new ArrayList<>();
+        for (String code : codes) {
+            if (taken.contains(code)) {
+                existing.add(code);
+            }
+        }
+        return existing;
+    }
+
+    private void roundTrip() {
+        if (roundTripMicros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(roundTripMicros));
+        }
+    }
+
+    @Benchmark
+    public List<String> batchAllocation() {
+        return generator.allocateCodes(batchSize);
+    }
+
+    @Benchmark
+    public List<String> perCodeLookup() {
+        List<String> codes = new ArrayList<>(batchSize);
+        Set<String> local = new HashSet<>();
+        for (int i = 0; i < batchSize; i++) {
+            String code;
+            boolean exists;
+            do {
+                code = generator.randomCode();
+                roundTrip();
+                exists = taken.contains(code);
+            } while (exists || !local.add(code));
+            codes.add(code);
+        }
+        return codes;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CodeAllocationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.vres.otp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void timerExpiresOnItsDeadlineTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(0);
+        wheel.schedule("a", 5);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advanceTo(4, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advanceTo(5, expired::add);
+        assertThat(expired).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void timersCascadeDownToExpireOnTheirExactTick() {
+        long start = 1_000;
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(start);
+        // Deadlines around every level boundary, from a start that is not slot-aligned
+        long[] offsets = {1, 63, 64, 65, 127, 128, 4_095, 4_096, 4_097, 262_143, 262_144, 262_145, 1_000_000};
+        for (long offset : offsets) {
+            wheel.schedule(start + offset, start + offset);
+        }
+        Map<Long, Long> expiredAt = new HashMap<>();
+
+        wheel.advanceTo(start + 1_000_000, deadline -> expiredAt.put(deadline, wheel.currentTick()));
+
+        assertThat(expiredAt).hasSize(offsets.length);
+        expiredAt.forEach((deadline, tick) -> assertThat(tick).as("deadline %d", deadline).isEqualTo(deadline));
+    }
+
+    @Test
+    void randomDeadlinesExpireInOrderAndOnTime() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(0);
+        Random random = new Random(42);
+        int count = 10_000;
+        for (int i = 0; i < count; i++) {
+            long deadline = 1 + random.nextInt(2_000_000);
+            wheel.schedule(deadline, deadline);
+        }
+        long[] last = {0};
+        int[] expired = {0};
+
+        wheel.advanceTo(2_000_000, deadline -> {
+            assertThat(deadline).isEqualTo(wheel.currentTick()).isGreaterThanOrEqualTo(last[0]);
+            last[0] = deadline;
+            expired[0]++;
+        });
+
+        assertThat(expired[0]).isEqualTo(count);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelledTimerNeverExpires() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(0);
+        HierarchicalTimingWheel.Timer<String> cancelled = wheel.schedule("cancelled", 100);
+        wheel.schedule("kept", 100);
+
+        wheel.cancel(cancelled);
+        wheel.cancel(cancelled);
+        List<String> expired = new ArrayList<>();
+        wheel.advanceTo(200, expired::add);
+
+        assertThat(expired).containsExactly("kept");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void dueAndDistantDeadlinesAreClamped() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10);
+        wheel.schedule("past", 3);
+        HierarchicalTimingWheel.Timer<String> distant = wheel.schedule("distant", Long.MAX_VALUE);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advanceTo(11, expired::add);
+
+        assertThat(expired).containsExactly("past");
+        assertThat(distant.deadline).isEqualTo(10 + (1L << 24) - 1);
+    }
+}
@@ -0,0 +1,71 @@
+package com.vres.otp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class InMemoryOtpStoreTest {
+
+    private InMemoryOtpStore store;
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    void returnsOtpUntilItExpires() {
+        store = new InMemoryOtpStore(60_000);
+        store.put("V1", "123456", Instant.now().plusSeconds(60));
+        store.put("V2", "654321", Instant.now().minusMillis(1));
+
+        assertThat(store.get("V1")).isEqualTo("123456");
+        assertThat(store.get("V2")).isNull();
+        assertThat(store.get("V3")).isNull();
+    }
+
+    @Test
+    void putReplacesAndRemoveDeletes() {
+        store = new InMemoryOtpStore(60_000);
+        store.put("V1", "111111", Instant.now().plusSeconds(60));
+        store.put("V1", "222222", Instant.now().plusSeconds(60));
+
+        assertThat(store.get("V1")).isEqualTo("222222");
+        assertThat(store.size()).isEqualTo(1);
+
+        store.remove("V1");
+        store.remove("V1");
+        assertThat(store.get("V1")).isNull();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void expiredEntriesAreReclaimedByTheTicker() throws InterruptedException {
+        store = new InMemoryOtpStore(10);
+        store.put("short", "111111", Instant.now().plusMillis(50));
+        store.put("long", "222222", Instant.now().plusSeconds(60));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (store.size() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.get("long")).isEqualTo("222222");
+    }
+
+    @Test
+    void replacedEntryIsNotReclaimedAtTheOldDeadline() throws InterruptedException {
+        store = new InMemoryOtpStore(10);
+        store.put("V1", "111111", Instant.now().plusMillis(30));
+        store.put("V1", "222222", Instant.now().plusSeconds(60));
+
+        Thread.sleep(200);
+
+        assertThat(store.get("V1")).isEqualTo("222222");
+        assertThat(store.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,115 @@
+package com.vres.otp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReplicatedOtpStoreTest {
+
+    private static final String SECRET = "replication-secret";
+
+    private ReplicatedOtpStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ReplicatedOtpStore(new InMemoryOtpStore(60_000), List.of(), SECRET,
+                Duration.ofSeconds(1), Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    void appliesSignedPutAndRemove() throws Exception {
+        long expiresAt = Instant.now().plusSeconds(60).toEpochMilli();
+        apply(putMessage("V1", "123456", expiresAt, System.currentTimeMillis()));
+        assertThat(store.get("V1")).isEqualTo("123456");
+
+        apply(removeMessage("V1", System.currentTimeMillis()));
+        assertThat(store.get("V1")).isNull();
+    }
+
+    @Test
+    void rejectsBadSignature() {
+        String body = removeMessage("V1", System.currentTimeMillis());
+
+        assertThatThrownBy(() -> store.applyReplica(body, "00")).isInstanceOf(SecurityException.class);
+        assertThatThrownBy(() -> store.applyReplica(body, null)).isInstanceOf(SecurityException.class);
+    }
+
+    @Test
+    void rejectsStaleMessage() throws Exception {
+        apply(putMessage("V1", "123456", Instant.now().plusSeconds(60).toEpochMilli(), System.currentTimeMillis()));
+        String stale = removeMessage("V1", System.currentTimeMillis() - 60_000);
+
+        assertThatThrownBy(() -> store.applyReplica(stale, sign(stale)))
+                .isInstanceOf(SecurityException.class)
+                .hasMessageContaining("Stale");
+        assertThat(store.get("V1")).isEqualTo("123456");
+    }
+
+    @Test
+    void rejectsReplayedMessage() throws Exception {
+        String remove = removeMessage("V1", System.currentTimeMillis());
+        apply(remove);
+        apply(putMessage("V1", "654321", Instant.now().plusSeconds(60).toEpochMilli(), System.currentTimeMillis()));
+
+        assertThatThrownBy(() -> store.applyReplica(remove, sign(remove)))
+                .isInstanceOf(SecurityException.class)
+                .hasMessageContaining("Replayed");
+        assertThat(store.get("V1")).isEqualTo("654321");
+    }
+
+    @Test
+    void rejectsMessageWithoutSentAt() throws Exception {
+        String body = "{\"voucherCode\":\"V1\"}";
+
+        assertThatThrownBy(() -> store.applyReplica(body, sign(body))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void refusesPlainHttpPeers() {
+        InMemoryOtpStore local = new InMemoryOtpStore(60_000);
+        try {
+            assertThatThrownBy(() -> new ReplicatedOtpStore(local, List.of("https://node-a:8080", "http://node-b:8080"),
+                    SECRET, Duration.ofSeconds(1), Duration.ofSeconds(30)))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("https");
+        } finally {
+            local.shutdown();
+        }
+    }
+
+    private void apply(String body) throws Exception {
+        store.applyReplica(body, sign(body));
+    }
+
+    private static String putMessage(String voucherCode, String otp, long expiresAt, long sentAt) {
+        return "{\"voucherCode\":\"" + voucherCode + "\",\"otp\":\"" + otp + "\",\"expiresAt\":" + expiresAt
+                + ",\"sentAt\":" + sentAt + "}";
+    }
+
+    private static String removeMessage(String voucherCode, long sentAt) {
+        return "{\"voucherCode\":\"" + voucherCode + "\",\"sentAt\":" + sentAt + "}";
+    }
+
+    private static String sign(String body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
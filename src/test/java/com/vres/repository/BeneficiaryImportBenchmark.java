@@ -0,0 +1,142 @@
+package com.vres.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vres.entity.Beneficiaries;
+import com.vres.entity.Department;
+import com.vres.entity.Projects;
+
+/**
+ * Time to import 10k, 100k and 1M beneficiaries with {@link JdbcBatchWriter}
+ * against the previous one-INSERT-per-row path (what saveAll did with IDENTITY
+ * ids). Divide rows by the reported time for rows/sec.
+ * <p>
+ * Needs a MySQL database with the application schema and an existing project
+ * and department; inserted rows are deleted after each iteration. Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.vres.repository.BeneficiaryImportBenchmark \
+ *     -Dvres.bench.jdbc-url=jdbc:mysql://localhost:3306/vres -Dvres.bench.user=... -Dvres.bench.password=... \
+ *     -Dvres.bench.project-id=1 -Dvres.bench.department-id=1
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BeneficiaryImportBenchmark {
+
+    private static final String BENCH_PHONE_PREFIX = "+00bench";
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcBatchWriter writer;
+    private TransactionTemplate transactionTemplate;
+    private List<Beneficiaries> beneficiaries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // rewriteBatchedStatements is what application.yml sets on the pool
+        String url = System.getProperty("vres.bench.jdbc-url");
+        dataSource = new SingleConnectionDataSource(
+                url + (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true",
+                System.getProperty("vres.bench.user"), System.getProperty("vres.bench.password"), true);
+
+        writer = new JdbcBatchWriter();
+        ReflectionTestUtils.setField(writer, "jdbcTemplate", new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(writer, "batchSize", 1000);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        Projects project = new Projects();
+        project.setId(Integer.getInteger("vres.bench.project-id", 1));
+        Department department = new Department();
+        department.setId(Integer.getInteger("vres.bench.department-id", 1));
+
+        beneficiaries = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Beneficiaries b = new Beneficiaries();
+            b.setName("Bench Beneficiary " + i);
+            b.setPhone(BENCH_PHONE_PREFIX + i);
+            b.setProject(project);
+            b.setDepartment(department);
+            b.setIs_approved(false);
+            beneficiaries.add(b);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteInsertedRows() {
+        new JdbcTemplate(dataSource).update("DELETE FROM beneficiaries WHERE phone LIKE ?", BENCH_PHONE_PREFIX + "%");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public void jdbcBatch() {
+        transactionTemplate.executeWithoutResult(status -> writer.insertBeneficiaries(beneficiaries));
+    }
+
+    @Benchmark
+    public void rowByRow() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Connection connection = DataSourceUtils.getConnection(dataSource);
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO beneficiaries (name, phone, department_id, project_id, is_approved, created_at) VALUES (?, ?, ?, ?, ?, CURRENT_DATE)")) {
+                for (Beneficiaries b : beneficiaries) {
+                    ps.setString(1, b.getName());
+                    ps.setString(2, b.getPhone());
+                    ps.setInt(3, b.getDepartment().getId());
+                    ps.setInt(4, b.getProject().getId());
+                    ps.setBoolean(5, false);
+                    ps.executeUpdate();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BeneficiaryImportBenchmark.class.getSimpleName())
+                .jvmArgsAppend(System.getProperties().stringPropertyNames().stream()
+                        .filter(name -> name.startsWith("vres.bench."))
+                        .map(name -> "-D" + name + "=" + System.getProperty(name))
+                        .toArray(String[]::new))
+                .build()).run();
+    }
+}
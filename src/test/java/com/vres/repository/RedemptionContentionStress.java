@@ -0,0 +1,189 @@
+package com.vres.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Concurrency stress for {@link RedemptionWriter}: every voucher is confirmed by
+ * several contenders at once, and the run checks that each voucher has exactly
+ * one winner and one redemptions row. Reports attempts/sec and latency under
+ * contention. {@code -Dvres.bench.mode=read-then-write} runs the old
+ * check-in-Java-then-save sequence instead, to show the double redemptions the
+ * conditional UPDATE prevents.
+ * <p>
+ * Needs a MySQL database with the application schema, an existing project,
+ * beneficiary and vendor user; the vouchers and redemptions it creates are
+ * deleted at the end. Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.vres.repository.RedemptionContentionStress \
+ *     -Dvres.bench.jdbc-url=jdbc:mysql://localhost:3306/vres -Dvres.bench.user=... -Dvres.bench.password=... \
+ *     -Dvres.bench.project-id=1 -Dvres.bench.beneficiary-id=1 -Dvres.bench.vendor-id=1 \
+ *     -Dvres.bench.vouchers=1000 -Dvres.bench.contenders=8 -Dvres.bench.threads=32
+ * </pre>
+ * Exits with status 1 if any voucher did not have exactly one winner.
+ */
+public class RedemptionContentionStress {
+
+    private static final String BENCH_CODE_PREFIX = "BENCH-CAS-";
+
+    public static void main(String[] args) throws Exception {
+        int voucherCount = Integer.getInteger("vres.bench.vouchers", 1000);
+        int contenders = Integer.getInteger("vres.bench.contenders", 8);
+        int threads = Integer.getInteger("vres.bench.threads", 32);
+        int projectId = Integer.getInteger("vres.bench.project-id", 1);
+        int beneficiaryId = Integer.getInteger("vres.bench.beneficiary-id", 1);
+        int vendorId = Integer.getInteger("vres.bench.vendor-id", 1);
+        boolean readThenWrite = "read-then-write".equals(System.getProperty("vres.bench.mode", "cas"));
+
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(System.getProperty("vres.bench.jdbc-url"));
+        dataSource.setUsername(System.getProperty("vres.bench.user"));
+        dataSource.setPassword(System.getProperty("vres.bench.password"));
+        dataSource.setMaximumPoolSize(threads);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        RedemptionWriter writer = new RedemptionWriter();
+        ReflectionTestUtils.setField(writer, "jdbcTemplate", jdbcTemplate);
+
+        try {
+            int[] voucherIds = createVouchers(jdbcTemplate, voucherCount, projectId, beneficiaryId);
+
+            // Every contender for a voucher is a separate task; shuffled so contenders overlap in time
+            List<Integer> tasks = new ArrayList<>(voucherCount * contenders);
+            for (int i = 0; i < voucherCount; i++) {
+                for (int c = 0; c < contenders; c++) {
+                    tasks.add(i);
+                }
+            }
+            Collections.shuffle(tasks);
+
+            AtomicIntegerArray winners = new AtomicIntegerArray(voucherCount);
+            AtomicLong failures = new AtomicLong();
+            long[] latencies = new long[tasks.size()];
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(tasks.size());
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            for (int t = 0; t < tasks.size(); t++) {
+                int index = tasks.get(t);
+                int slot = t;
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                        long began = System.nanoTime();
+                        Boolean won = transactionTemplate.execute(status -> readThenWrite
+                                ? readThenWrite(jdbcTemplate, voucherIds[index], vendorId)
+                                : writer.redeem(voucherIds[index], vendorId, 0.0, 0.0, "stress"));
+                        latencies[slot] = System.nanoTime() - began;
+                        if (Boolean.TRUE.equals(won)) {
+                            winners.incrementAndGet(index);
+                        }
+                    } catch (Exception e) {
+                        // Deadlocks and lock wait timeouts count as failed attempts, not wins
+                        failures.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+
+            long began = System.nanoTime();
+            start.countDown();
+            done.await();
+            long elapsedNanos = System.nanoTime() - began;
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+
+            int wrongWinners = 0;
+            for (int i = 0; i < voucherCount; i++) {
+                if (winners.get(i) != 1) wrongWinners++;
+            }
+            Map<Integer, Integer> rowsPerVoucher = redemptionRows(jdbcTemplate, voucherIds);
+            long wrongRows = Arrays.stream(voucherIds).filter(id -> rowsPerVoucher.getOrDefault(id, 0) != 1).count();
+
+            Arrays.sort(latencies);
+            double seconds = elapsedNanos / 1e9;
+            System.out.printf("mode=%s vouchers=%d contenders=%d threads=%d%n",
+                    readThenWrite ? "read-then-write" : "cas", voucherCount, contenders, threads);
+            System.out.printf("attempts=%d in %.2fs: %.0f attempts/s, %.0f redemptions/s, %d failed attempts%n",
+                    tasks.size(), seconds, tasks.size() / seconds, voucherCount / seconds, failures.get());
+            System.out.printf("latency p50=%.2fms p99=%.2fms max=%.2fms%n",
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+            System.out.printf("vouchers without exactly one winner: %d, without exactly one redemptions row: %d%n",
+                    wrongWinners, wrongRows);
+
+            cleanUp(jdbcTemplate, voucherIds);
+            if (wrongWinners > 0 || wrongRows > 0) {
+                System.exit(1);
+            }
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    // The pre-change sequence: status checked in Java, then insert and unconditional save
+    private static boolean readThenWrite(JdbcTemplate jdbcTemplate, int voucherId, int vendorId) {
+        String status = jdbcTemplate.queryForObject("SELECT status FROM vouchers WHERE id = ?", String.class, voucherId);
+        if (!"ISSUED".equalsIgnoreCase(status)) {
+            return false;
+        }
+        jdbcTemplate.update("INSERT INTO redemptions (voucher_id, vendor_id, redeemed_at, geo_lat, geo_lon, device_fingerprint, created_at) "
+                + "VALUES (?, ?, CURRENT_DATE, 0, 0, 'stress', CURRENT_DATE)", voucherId, vendorId);
+        jdbcTemplate.update("UPDATE vouchers SET status = 'REDEEMED' WHERE id = ?", voucherId);
+        return true;
+    }
+
+    private static int[] createVouchers(JdbcTemplate jdbcTemplate, int count, int projectId, int beneficiaryId) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[] {projectId, beneficiaryId, BENCH_CODE_PREFIX + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO vouchers (project_id, beneficiary_id, status, string_code, issued_at) "
+                + "VALUES (?, ?, 'ISSUED', ?, CURRENT_DATE)", rows);
+        // Ordered by the numeric suffix so voucherIds[i] is BENCH-CAS-i
+        List<Integer> ids = jdbcTemplate.queryForList("SELECT id FROM vouchers WHERE string_code LIKE ? "
+                + "ORDER BY CAST(SUBSTRING(string_code, ?) AS UNSIGNED)", Integer.class,
+                BENCH_CODE_PREFIX + "%", BENCH_CODE_PREFIX.length() + 1);
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Map<Integer, Integer> redemptionRows(JdbcTemplate jdbcTemplate, int[] voucherIds) {
+        String in = Arrays.stream(voucherIds).mapToObj(String::valueOf).collect(Collectors.joining(","));
+        return jdbcTemplate.query("SELECT voucher_id, COUNT(*) FROM redemptions WHERE voucher_id IN (" + in + ") GROUP BY voucher_id",
+                rs -> {
+                    Map<Integer, Integer> counts = new HashMap<>();
+                    while (rs.next()) {
+                        counts.put(rs.getInt(1), rs.getInt(2));
+                    }
+                    return counts;
+                });
+    }
+
+    private static void cleanUp(JdbcTemplate jdbcTemplate, int[] voucherIds) {
+        String in = Arrays.stream(voucherIds).mapToObj(String::valueOf).collect(Collectors.joining(","));
+        jdbcTemplate.update("DELETE FROM redemptions WHERE voucher_id IN (" + in + ")");
+        jdbcTemplate.update("DELETE FROM vouchers WHERE string_code LIKE ?", BENCH_CODE_PREFIX + "%");
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+}
@@ -0,0 +1,151 @@
+package com.vres.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DashboardCacheTest {
+
+    private static final int PROJECT = 7;
+
+    private final DashboardService dashboardService = mock(DashboardService.class);
+    private final AtomicInteger computations = new AtomicInteger();
+    // Computations past the first wait for a permit, so a test can hold a refresh in flight
+    private final Semaphore refreshPermits = new Semaphore(0);
+    private final Semaphore refreshStarted = new Semaphore(0);
+
+    private DashboardCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(dashboardService.getDashboardByProjectId(PROJECT)).thenAnswer(invocation -> {
+            int computation = computations.incrementAndGet();
+            if (computation > 1) {
+                refreshStarted.release();
+                refreshPermits.acquire();
+            }
+            return Map.<String, Object>of("computation", computation);
+        });
+        cache = new DashboardCache();
+        ReflectionTestUtils.setField(cache, "dashboardService", dashboardService);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxProjects", 100L);
+        ReflectionTestUtils.setField(cache, "refreshSeconds", 3_600L);
+        ReflectionTestUtils.setField(cache, "idleMinutes", 60L);
+        ReflectionTestUtils.setField(cache, "refreshThreads", 2);
+        cache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshPermits.release(100);
+        cache.stop();
+    }
+
+    @Test
+    void concurrentFirstRequestsShareOneLoad() throws Exception {
+        doAnswer(invocation -> {
+            Thread.sleep(100);
+            return Map.<String, Object>of("computation", computations.incrementAndGet());
+        }).when(dashboardService).getDashboardByProjectId(PROJECT);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Map<String, Object>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> {
+                    start.await();
+                    return cache.get(PROJECT);
+                }));
+            }
+            start.countDown();
+            for (Future<Map<String, Object>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).containsEntry("computation", 1);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(computations).hasValue(1);
+    }
+
+    @Test
+    void unchangedProjectIsServedFromCache() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.get(PROJECT)).containsEntry("computation", 1);
+        }
+        assertThat(computations).hasValue(1);
+    }
+
+    @Test
+    void changeServesStaleCopyWhileOneRefreshRuns() throws Exception {
+        cache.get(PROJECT);
+
+        cache.onProjectDataChanged(new ProjectDataChangedEvent(PROJECT));
+        for (int i = 0; i < 20; i++) {
+            assertThat(cache.get(PROJECT)).containsEntry("computation", 1);
+        }
+        assertThat(refreshStarted.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        refreshPermits.release();
+
+        assertThat(awaitComputation(2)).isTrue();
+        assertThat(computations).hasValue(2);
+    }
+
+    @Test
+    void changeDuringARefreshDiscardsItsResult() throws Exception {
+        cache.get(PROJECT);
+        cache.onProjectDataChanged(new ProjectDataChangedEvent(PROJECT));
+        cache.get(PROJECT);
+        assertThat(refreshStarted.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+
+        // Lands while computation 2 may already have read the old data
+        cache.onProjectDataChanged(new ProjectDataChangedEvent(PROJECT));
+        refreshPermits.release();
+        Thread.sleep(100);
+        assertThat(cache.get(PROJECT)).containsEntry("computation", 1);
+
+        assertThat(refreshStarted.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        refreshPermits.release();
+        assertThat(awaitComputation(3)).isTrue();
+    }
+
+    @Test
+    void changeToAnUncachedProjectKeepsNoState() {
+        for (int project = 1_000; project < 2_000; project++) {
+            cache.onProjectDataChanged(new ProjectDataChangedEvent(project));
+        }
+
+        assertThat(cache.get(PROJECT)).containsEntry("computation", 1);
+        assertThat(computations).hasValue(1);
+    }
+
+    private boolean awaitComputation(int computation) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (Integer.valueOf(computation).equals(cache.get(PROJECT).get("computation"))) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,97 @@
+package com.vres.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class SlidingWindowLimiterTest {
+
+    private static final long WINDOW = 1_000;
+    // Aligned to a window boundary
+    private static final long T0 = 10_000;
+
+    private final SlidingWindowLimiter limiter = new SlidingWindowLimiter(10, WINDOW, 4);
+
+    @Test
+    void allowsUpToTheLimitThenWaitsForTheWindowToEnd() {
+        acquire("ip", T0, 10);
+
+        assertThat(limiter.tryAcquire("ip", T0)).isEqualTo(1_000);
+        assertThat(limiter.tryAcquire("ip", T0 + 400)).isEqualTo(600);
+    }
+
+    @Test
+    void previousWindowIsWeightedByItsRemainingOverlap() {
+        acquire("ip", T0, 10);
+
+        // Halfway through the next window the previous one still counts for 5
+        acquire("ip", T0 + 1_500, 5);
+        assertThat(limiter.tryAcquire("ip", T0 + 1_500)).isEqualTo(100);
+        assertThat(limiter.tryAcquire("ip", T0 + 1_599)).isPositive();
+        assertThat(limiter.tryAcquire("ip", T0 + 1_600)).isZero();
+    }
+
+    @Test
+    void retryAfterHintIsHonoured() {
+        acquire("ip", T0, 10);
+        acquire("ip", T0 + 1_200, 2);
+
+        long retryAfter = limiter.tryAcquire("ip", T0 + 1_200);
+
+        assertThat(retryAfter).isPositive();
+        assertThat(limiter.tryAcquire("ip", T0 + 1_200 + retryAfter - 1)).isPositive();
+        assertThat(limiter.tryAcquire("ip", T0 + 1_200 + retryAfter)).isZero();
+    }
+
+    @Test
+    void rejectedAttemptsAreNotCounted() {
+        acquire("ip", T0, 10);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("ip", T0 + 999);
+        }
+
+        // Only the 10 accepted attempts slide over: 10 * 0.5 = 5 left at mid-window
+        acquire("ip", T0 + 1_500, 5);
+    }
+
+    @Test
+    void peekRecordsNothing() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.retryAfter("ip", T0)).isZero();
+        }
+        acquire("ip", T0, 10);
+
+        assertThat(limiter.retryAfter("ip", T0 + 100)).isEqualTo(900);
+        assertThat(limiter.retryAfter("unknown", T0)).isZero();
+    }
+
+    @Test
+    void keysAreCountedSeparately() {
+        acquire("a", T0, 10);
+
+        assertThat(limiter.tryAcquire("a", T0)).isPositive();
+        acquire("b", T0, 10);
+    }
+
+    @Test
+    void idleKeyStartsAfresh() {
+        acquire("ip", T0, 10);
+
+        acquire("ip", T0 + 2 * WINDOW, 10);
+        assertThat(limiter.tryAcquire("ip", T0 + 2 * WINDOW)).isPositive();
+    }
+
+    @Test
+    void zeroLimitRejectsEverything() {
+        SlidingWindowLimiter closed = new SlidingWindowLimiter(0, WINDOW, 1);
+
+        assertThat(closed.retryAfter("ip", T0)).isEqualTo(WINDOW);
+        assertThat(closed.tryAcquire("ip", T0 + 250)).isEqualTo(750);
+    }
+
+    private void acquire(String key, long now, int times) {
+        for (int i = 0; i < times; i++) {
+            assertThat(limiter.tryAcquire(key, now)).as("attempt %d", i + 1).isZero();
+        }
+    }
+}
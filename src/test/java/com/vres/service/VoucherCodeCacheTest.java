@@ -0,0 +1,179 @@
+package com.vres.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.vres.dto.RedemptionView;
+import com.vres.generator.CodeGeneratorService;
+import com.vres.repository.VouchersRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class VoucherCodeCacheTest {
+
+    private final VouchersRepository vouchersRepository = mock(VouchersRepository.class);
+    private final CodeGeneratorService codeGeneratorService =
+            new CodeGeneratorService(6, CodeGeneratorService.DEFAULT_CHARACTERS, true, codes -> List.of());
+
+    private VoucherCodeCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VoucherCodeCache();
+        ReflectionTestUtils.setField(cache, "vouchersRepository", vouchersRepository);
+        ReflectionTestUtils.setField(cache, "codeGeneratorService", codeGeneratorService);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxEntries", 1_000L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(cache, "negativeTtlSeconds", 1L);
+        cache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void knownCodeIsLoadedOnce() {
+        when(vouchersRepository.findRedemptionView("ABC")).thenReturn(Optional.of(view("ABC", 1)));
+
+        assertThat(cache.get("ABC")).hasValueSatisfying(view -> assertThat(view.getStringCode()).isEqualTo("ABC"));
+        assertThat(cache.get("ABC")).isPresent();
+
+        verify(vouchersRepository, times(1)).findRedemptionView("ABC");
+    }
+
+    @Test
+    void unknownCodeIsCachedAsAbsentForTheShorterTtl() throws InterruptedException {
+        when(vouchersRepository.findRedemptionView("NOPE")).thenReturn(Optional.empty());
+        when(vouchersRepository.findRedemptionView("ABC")).thenReturn(Optional.of(view("ABC", 1)));
+
+        assertThat(cache.get("NOPE")).isEmpty();
+        assertThat(cache.get("NOPE")).isEmpty();
+        cache.get("ABC");
+        verify(vouchersRepository, times(1)).findRedemptionView("NOPE");
+
+        Thread.sleep(1_200);
+
+        assertThat(cache.get("NOPE")).isEmpty();
+        cache.get("ABC");
+        verify(vouchersRepository, times(2)).findRedemptionView("NOPE");
+        verify(vouchersRepository, times(1)).findRedemptionView("ABC");
+    }
+
+    @Test
+    void nullCodeSkipsTheRepository() {
+        assertThat(cache.get(null)).isEmpty();
+
+        verifyNoInteractions(vouchersRepository);
+    }
+
+    @Test
+    void mistypedCodeSkipsTheRepository() {
+        String code = codeGeneratorService.randomCode();
+        char check = code.charAt(code.length() - 1);
+        char wrong = CodeGeneratorService.DEFAULT_CHARACTERS.charAt(
+                (CodeGeneratorService.DEFAULT_CHARACTERS.indexOf(check) + 1) % CodeGeneratorService.DEFAULT_CHARACTERS.length());
+        String mistyped = code.substring(0, code.length() - 1) + wrong;
+
+        assertThat(cache.get(mistyped)).isEmpty();
+        assertThat(cache.get(mistyped.toLowerCase(Locale.ROOT))).isEmpty();
+
+        verifyNoInteractions(vouchersRepository);
+    }
+
+    @Test
+    void issuingDropsNegativeEntries() {
+        when(vouchersRepository.findRedemptionView("NEW")).thenReturn(Optional.empty(), Optional.of(view("NEW", 1)));
+        assertThat(cache.get("NEW")).isEmpty();
+
+        cache.invalidateAll(List.of("NEW"));
+
+        assertThat(cache.get("NEW")).isPresent();
+    }
+
+    @Test
+    void invalidateDropsOneCode() {
+        when(vouchersRepository.findRedemptionView("ABC")).thenReturn(Optional.of(view("ABC", 1)));
+        when(vouchersRepository.findRedemptionView("DEF")).thenReturn(Optional.of(view("DEF", 1)));
+        cache.get("ABC");
+        cache.get("DEF");
+
+        cache.invalidate("ABC");
+        cache.get("ABC");
+        cache.get("DEF");
+
+        verify(vouchersRepository, times(2)).findRedemptionView("ABC");
+        verify(vouchersRepository, times(1)).findRedemptionView("DEF");
+    }
+
+    @Test
+    void caseAndWhitespaceVariantsShareOneEntry() {
+        when(vouchersRepository.findRedemptionView("ABC")).thenReturn(Optional.of(view("ABC", 1)));
+        cache.get("ABC");
+
+        assertThat(cache.get(" abc ")).isPresent();
+        assertThat(cache.get("aBc")).isPresent();
+        verify(vouchersRepository, times(1)).findRedemptionView("ABC");
+
+        cache.invalidate("abc ");
+        cache.get("ABC");
+        cache.invalidateAll(List.of(" Abc"));
+        cache.get("abc");
+
+        verify(vouchersRepository, times(3)).findRedemptionView("ABC");
+    }
+
+    @Test
+    void invalidateProjectDropsOnlyThatProjectsCodes() {
+        when(vouchersRepository.findRedemptionView("P1")).thenReturn(Optional.of(view("P1", 1)));
+        when(vouchersRepository.findRedemptionView("P2")).thenReturn(Optional.of(view("P2", 2)));
+        cache.get("P1");
+        cache.get("P2");
+
+        cache.invalidateProject(1);
+        cache.get("P1");
+        cache.get("P2");
+
+        verify(vouchersRepository, times(2)).findRedemptionView("P1");
+        verify(vouchersRepository, times(1)).findRedemptionView("P2");
+    }
+
+    @Test
+    void invalidationInsideATransactionIsRepeatedAfterCompletion() {
+        when(vouchersRepository.findRedemptionView("ABC")).thenReturn(Optional.of(view("ABC", 1)));
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidate("ABC");
+        // A lookup racing the transaction re-caches the pre-commit state
+        cache.get("ABC");
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        cache.get("ABC");
+
+        verify(vouchersRepository, times(2)).findRedemptionView("ABC");
+    }
+
+    private static RedemptionView view(String code, int projectId) {
+        return new RedemptionView(code.hashCode(), code, "ISSUED", projectId, null, null, "+910000000000");
+    }
+}
@@ -0,0 +1,266 @@
+package com.vres.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.vres.entity.Beneficiaries;
+import com.vres.entity.Projects;
+import com.vres.entity.Vouchers;
+import com.vres.generator.CodeGeneratorService;
+import com.vres.repository.JdbcBatchWriter;
+import com.vres.service.VoucherIssuancePipeline.IssuanceReport;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class VoucherIssuancePipelineTest {
+
+    private final CodeGeneratorService codeGeneratorService = mock(CodeGeneratorService.class);
+    private final S3Service s3Service = mock(S3Service.class);
+    private final BrevoSmsService brevoSmsService = mock(BrevoSmsService.class);
+    private final JdbcBatchWriter jdbcBatchWriter = mock(JdbcBatchWriter.class);
+    private final VoucherService voucherService = mock(VoucherService.class);
+
+    private VoucherIssuancePipeline pipeline;
+    private Projects project;
+
+    @BeforeEach
+    void setUp() {
+        StageTimer stageTimer = new StageTimer();
+        ReflectionTestUtils.setField(stageTimer, "meterRegistry", new SimpleMeterRegistry());
+
+        pipeline = new VoucherIssuancePipeline();
+        ReflectionTestUtils.setField(pipeline, "codeGeneratorService", codeGeneratorService);
+        ReflectionTestUtils.setField(pipeline, "s3Service", s3Service);
+        ReflectionTestUtils.setField(pipeline, "brevoSmsService", brevoSmsService);
+        ReflectionTestUtils.setField(pipeline, "stageTimer", stageTimer);
+        ReflectionTestUtils.setField(pipeline, "voucherCodeCache", mock(VoucherCodeCache.class));
+        ReflectionTestUtils.setField(pipeline, "jdbcBatchWriter", jdbcBatchWriter);
+        ReflectionTestUtils.setField(pipeline, "voucherService", voucherService);
+        ReflectionTestUtils.setField(pipeline, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(pipeline, "renderThreads", 1);
+        ReflectionTestUtils.setField(pipeline, "uploadThreads", 1);
+        ReflectionTestUtils.setField(pipeline, "persistThreads", 2);
+        ReflectionTestUtils.setField(pipeline, "smsThreads", 2);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 16);
+        ReflectionTestUtils.setField(pipeline, "codeBatchSize", 7);
+        ReflectionTestUtils.setField(pipeline, "persistBatchSize", 5);
+        ReflectionTestUtils.setField(pipeline, "runTimeoutMinutes", 1L);
+        pipeline.start();
+
+        project = new Projects();
+        project.setId(1);
+
+        AtomicInteger sequence = new AtomicInteger();
+        when(codeGeneratorService.allocateCodes(anyInt(), anySet())).thenAnswer(invocation -> {
+            List<String> codes = new ArrayList<>();
+            for (int i = 0; i < (int) invocation.getArgument(0); i++) {
+                codes.add("CODE" + sequence.incrementAndGet());
+            }
+            return codes;
+        });
+        when(s3Service.uploadQRCode(any(), anyString())).thenAnswer(invocation -> "qr/" + invocation.getArgument(1));
+        when(jdbcBatchWriter.insertVouchers(anyList())).thenAnswer(invocation -> codesOf(invocation.getArgument(0)));
+        when(voucherService.getPublicQrLink(anyString())).thenAnswer(invocation -> "https://vres.test/qr/" + invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+
+    @Test
+    void issuesEveryVoucherAcrossPartialBatches() {
+        IssuanceReport report = pipeline.issue(project, beneficiaries(23));
+
+        assertThat(report.getTotal()).isEqualTo(23);
+        assertThat(report.getIssued()).isEqualTo(23);
+        assertThat(report.getFailed()).isZero();
+    }
+
+    @Test
+    void emptyRunReturnsAtOnce() {
+        IssuanceReport report = pipeline.issue(project, List.of());
+
+        assertThat(report.getTotal()).isZero();
+        assertThat(report.getIssued()).isZero();
+    }
+
+    @Test
+    void codeAllocationFailureFailsTheWholeSlice() {
+        when(codeGeneratorService.allocateCodes(anyInt(), anySet())).thenThrow(new IllegalStateException("code space exhausted"));
+
+        IssuanceReport report = pipeline.issue(project, beneficiaries(10));
+
+        assertThat(report.getIssued()).isZero();
+        assertThat(report.getFailed()).isEqualTo(10);
+    }
+
+    @Test
+    void uploadFailureFailsOnlyThatVoucher() {
+        when(s3Service.uploadQRCode(any(), anyString())).thenAnswer(invocation -> {
+            if ("CODE4".equals(invocation.getArgument(1))) {
+                throw new IllegalStateException("S3 unavailable");
+            }
+            return "qr/" + invocation.getArgument(1);
+        });
+
+        IssuanceReport report = pipeline.issue(project, beneficiaries(9));
+
+        assertThat(report.getIssued()).isEqualTo(8);
+        assertThat(report.getFailed()).isEqualTo(1);
+    }
+
+    @Test
+    void failedBatchFallsBackToRowByRow() {
+        doAnswer(invocation -> {
+            List<Vouchers> vouchers = invocation.getArgument(0);
+            if (vouchers.size() > 1) {
+                throw new IllegalStateException("batch rejected");
+            }
+            if ("CODE3".equals(vouchers.get(0).getStringCode())) {
+                throw new IllegalStateException("bad row");
+            }
+            return codesOf(vouchers);
+        }).when(jdbcBatchWriter).insertVouchers(anyList());
+
+        IssuanceReport report = pipeline.issue(project, beneficiaries(12));
+
+        assertThat(report.getIssued()).isEqualTo(11);
+        assertThat(report.getFailed()).isEqualTo(1);
+    }
+
+    @Test
+    void vouchersSkippedByTheUniqueKeyAreFailed() {
+        // Every third voucher collides with one another job already issued
+        when(jdbcBatchWriter.insertVouchers(anyList())).thenAnswer(invocation -> {
+            Set<String> inserted = codesOf(invocation.getArgument(0));
+            inserted.removeIf(code -> Integer.parseInt(code.substring(4)) % 3 == 0);
+            return inserted;
+        });
+
+        IssuanceReport report = pipeline.issue(project, beneficiaries(12));
+
+        assertThat(report.getIssued()).isEqualTo(8);
+        assertThat(report.getFailed()).isEqualTo(4);
+    }
+
+    @Test
+    void errorThrownInsideAStageFailsTheItemsItHolds() {
+        // Not an Exception, so it escapes the persist stage's own handling
+        doThrow(new AssertionError("driver bug")).when(jdbcBatchWriter).insertVouchers(anyList());
+
+        IssuanceReport report = pipeline.issue(project, beneficiaries(11));
+
+        assertThat(report.getIssued()).isZero();
+        assertThat(report.getFailed()).isEqualTo(11);
+    }
+
+    @Test
+    void smsFailureDoesNotFailAStoredVoucher() {
+        doThrow(new IllegalStateException("Brevo down")).when(brevoSmsService)
+                .sendVoucherSms(any(), any(), any(), any(), any(), anyDouble(), any());
+
+        IssuanceReport report = pipeline.issue(project, beneficiaries(6));
+
+        assertThat(report.getIssued()).isEqualTo(6);
+        assertThat(report.getFailed()).isZero();
+        assertThat(report.getStages()).filteredOn(stage -> stage.getStage().equals("sms"))
+                .singleElement().satisfies(stage -> assertThat(stage.getFailed()).isEqualTo(6));
+    }
+
+    @Test
+    void runThatDoesNotSettleInTimeFailsWhatIsLeft() throws Exception {
+        ReflectionTestUtils.setField(pipeline, "runTimeoutMinutes", 0L);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(brevoSmsService).sendVoucherSms(any(), any(), any(), any(), any(), anyDouble(), any());
+
+        try {
+            assertThatThrownBy(() -> pipeline.issue(project, beneficiaries(3)))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("did not finish");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void runThatGaveUpDoesNoFurtherWork() throws Exception {
+        CountDownLatch allocating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            allocating.countDown();
+            release.await();
+            return List.of("CODE1", "CODE2", "CODE3");
+        }).when(codeGeneratorService).allocateCodes(anyInt(), anySet());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                pipeline.issue(project, beneficiaries(3));
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+
+        caller.start();
+        try {
+            assertThat(allocating.await(5, TimeUnit.SECONDS)).isTrue();
+            // The caller stops waiting while the code stage is still working on the run
+            caller.interrupt();
+            caller.join(5_000);
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(failure.get()).isInstanceOf(IllegalStateException.class).hasMessageContaining("interrupted");
+        verify(s3Service, after(300).never()).uploadQRCode(any(), anyString());
+        verify(jdbcBatchWriter, never()).insertVouchers(anyList());
+        verify(brevoSmsService, never()).sendVoucherSms(any(), any(), any(), any(), any(), anyDouble(), any());
+    }
+
+    private static Set<String> codesOf(List<Vouchers> vouchers) {
+        return vouchers.stream().map(Vouchers::getStringCode).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static List<Beneficiaries> beneficiaries(int count) {
+        List<Beneficiaries> beneficiaries = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Beneficiaries beneficiary = new Beneficiaries();
+            beneficiary.setId(i);
+            beneficiary.setPhone("+9190000000" + String.format("%02d", i));
+            beneficiaries.add(beneficiary);
+        }
+        return beneficiaries;
+    }
+}
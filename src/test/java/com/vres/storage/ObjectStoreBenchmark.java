@@ -0,0 +1,102 @@
+package com.vres.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.zxing.WriterException;
+import com.vres.generator.CodeGeneratorService;
+import com.vres.generator.QRCodeRenderer;
+
+/**
+ * QR images stored/read per second for the local {@link ObjectStore} backends,
+ * using real voucher QR PNGs. Runs against a temp directory, so the numbers
+ * reflect the local disk. Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.vres.storage.ObjectStoreBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class ObjectStoreBenchmark {
+
+    private static final int PRELOADED = 10_000;
+
+    @Param({"filesystem", "mapped"})
+    public String store;
+
+    private Path directory;
+    private ObjectStore objectStore;
+    private byte[] png;
+    private String[] preloadedKeys;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, WriterException {
+        directory = Files.createTempDirectory("vres-object-store-");
+        objectStore = "mapped".equals(store)
+                ? new MappedSegmentObjectStore(directory, 64 * 1024 * 1024, false)
+                : new FileSystemObjectStore(directory);
+
+        CodeGeneratorService codes = new CodeGeneratorService(6, CodeGeneratorService.DEFAULT_CHARACTERS, true, c -> List.of());
+        png = QRCodeRenderer.renderPng(codes.randomCode(), QRCodeRenderer.VOUCHER_QR_SIZE, QRCodeRenderer.VOUCHER_QR_SIZE);
+        preloadedKeys = new String[PRELOADED];
+        for (int i = 0; i < PRELOADED; i++) {
+            preloadedKeys[i] = "VRES-P" + i;
+            objectStore.put(preloadedKeys[i], png, "image/png");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        objectStore.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void put() {
+        objectStore.put("VRES-W" + sequence.incrementAndGet(), png, "image/png");
+    }
+
+    @Benchmark
+    public byte[] get() {
+        return objectStore.get(preloadedKeys[ThreadLocalRandom.current().nextInt(PRELOADED)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ObjectStoreBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}